@@ -39,6 +39,6 @@ public class CopyFromParent extends LocalQuickFixBase {
      * detected problem.
      */
     public void doFix() {
-        PsiUtils.copyPsiDocComment(superMethod, method);
+        PsiUtils.copyPsiDocComment(getSuperMethod(), method);
     }
 }
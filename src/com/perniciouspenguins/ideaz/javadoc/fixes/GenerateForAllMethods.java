@@ -1,7 +1,11 @@
 package com.perniciouspenguins.ideaz.javadoc.fixes;
 
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
 import com.intellij.psi.JavaPsiFacade;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDocCommentOwner;
 import com.intellij.psi.PsiElementFactory;
 import com.intellij.psi.PsiMethod;
 import com.intellij.util.IncorrectOperationException;
@@ -9,6 +13,10 @@ import com.perniciouspenguins.ideaz.javadoc.templates.JavaDocGenerator;
 import com.perniciouspenguins.ideaz.javadoc.util.PsiUtils;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 /**
  * The GenerateForAllMethods class offers the ability to generate
  * a JavaDoc declaration for all methods that don't specify JavaDoc.
@@ -40,21 +48,87 @@ public class GenerateForAllMethods extends LocalQuickFixBase
     return FIX_GENERATE_FOR_ALL_METHODS;
   }
 
+  /**
+   * Called to apply the fix. Unlike the other fixes, the fix is not applied in a single write action,
+   * see doFix.
+   *
+   * @param project {@link com.intellij.openapi.project.Project}
+   * @param descriptor problem reported by the tool which provided this quick fix action
+   */
+  public void applyFix( @NotNull final Project project, @NotNull ProblemDescriptor descriptor )
+  {
+    doFix();
+  }
+
   /**
    * Method doFix returns the actual fix that needs to be executed to solve the
-   * detected problem.
+   * detected problem. The JavaDoc of all methods is generated in a read action first, after which all
+   * comments are added in a single write action.
    */
   public void doFix()
   {
-    PsiMethod[] psiMethods = psiClass.getMethods();
+    final Map<PsiDocCommentOwner, String> javaDocs =
+        JavaDocGenerator.generateJavaDoc( getMethodsWithoutJavaDoc() );
 
-    for(PsiMethod psiMethod : psiMethods )
+    ApplicationManager.getApplication().runWriteAction(
+        new Runnable()
+        {
+          /**
+           * Method run contains the action that needs to be executed when the dispatch thread
+           * allows write actions.
+           */
+          public void run()
+          {
+            applyJavaDoc( javaDocs );
+          }
+        } );
+  }
+
+  /**
+   * Method getMethodsWithoutJavaDoc returns the methods of the class that don't specify JavaDoc.
+   *
+   * @return List the methods without JavaDoc.
+   */
+  private List<PsiMethod> getMethodsWithoutJavaDoc()
+  {
+    final List<PsiMethod> methods = new ArrayList<PsiMethod>();
+    ApplicationManager.getApplication().runReadAction(
+        new Runnable()
+        {
+          /**
+           * Method run collects the methods without JavaDoc.
+           */
+          public void run()
+          {
+            for( PsiMethod psiMethod : psiClass.getMethods() )
+            {
+              if( null == psiMethod.getDocComment() )
+              {
+                methods.add( psiMethod );
+              }
+            }
+          }
+        } );
+    return methods;
+  }
+
+  /**
+   * Method applyJavaDoc adds the generated JavaDoc to the methods. Methods that received JavaDoc in the
+   * meantime are skipped.
+   *
+   * @param javaDocs the generated JavaDoc per method
+   */
+  private void applyJavaDoc( Map<PsiDocCommentOwner, String> javaDocs )
+  {
+    PsiElementFactory factory = JavaPsiFacade.getInstance( psiClass.getProject() ).getElementFactory();
+    for( Map.Entry<PsiDocCommentOwner, String> entry : javaDocs.entrySet() )
     {
+      PsiDocCommentOwner psiMethod = entry.getKey();
       try
       {
-        if( null == psiMethod.getDocComment() )
+        if( psiMethod.isValid() && null == psiMethod.getDocComment() && null != entry.getValue() )
         {
-          fixMethod( psiMethod );
+          PsiUtils.setPsiDocComment( factory.createDocCommentFromText( entry.getValue() ), psiMethod );
         }
       }
       catch( IncorrectOperationException e )
@@ -63,19 +137,4 @@ public class GenerateForAllMethods extends LocalQuickFixBase
       }
     }
   }
-
-  /**
-   * Method fixMethod applies the defined JavaDoc template to the specified method.
-   * @param psiMethod the method that does not define JavaDoc
-   * @throws IncorrectOperationException when creating the JavaDoc fails
-   */
-  private void fixMethod( PsiMethod psiMethod ) throws IncorrectOperationException
-  {
-    //PsiElementFactory factory = psiClass.getManager().getElementFactory();
-    PsiElementFactory factory =
-        JavaPsiFacade.getInstance( psiMethod.getProject() ).getElementFactory();
-    String javaDocTemplateText = JavaDocGenerator.generateJavaDoc( psiMethod );
-
-    PsiUtils.setPsiDocComment( factory.createDocCommentFromText( javaDocTemplateText ), psiMethod );
-  }
 }
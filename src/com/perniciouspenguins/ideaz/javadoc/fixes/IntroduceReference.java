@@ -43,6 +43,6 @@ public class IntroduceReference extends LocalQuickFixBase {
      * detected problem.
      */
     public void doFix() {
-        PsiUtils.addReference(method, superMethod, false, useSingleLineReferences);
+        PsiUtils.addReference(method, getSuperMethod(), false, useSingleLineReferences);
     }
 }
@@ -7,6 +7,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiMethod;
+import com.perniciouspenguins.ideaz.javadoc.util.SuperMethodResolver;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -175,6 +176,22 @@ public abstract class LocalQuickFixBase implements LocalQuickFix
    */
   public abstract void doFix();
 
+  /**
+   * Method getSuperMethod returns the super method this fix applies to. When the super method that was
+   * found by the inspection is no longer valid, it is looked up again through the override index.
+   *
+   * @return the super method or null if the method no longer has one.
+   */
+  protected PsiMethod getSuperMethod()
+  {
+    if( null != superMethod && !superMethod.isValid() && null != method && method.isValid() )
+    {
+      superMethod = SuperMethodResolver.getSuperMethod( method );
+      superClass = null != superMethod ? superMethod.getContainingClass() : null;
+    }
+    return superMethod;
+  }
+
   /**
    * Method getFamilyName returns the category name of
    * this inspection.
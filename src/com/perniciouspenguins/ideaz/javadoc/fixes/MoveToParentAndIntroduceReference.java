@@ -45,8 +45,8 @@ public class MoveToParentAndIntroduceReference extends LocalQuickFixBase {
      * detected problem.
      */
     public void doFix() {
-        PsiUtils.copyPsiDocComment(method, superMethod);
+        PsiUtils.copyPsiDocComment(method, getSuperMethod());
         // Create new reference javaDoc
-        PsiUtils.addReference(method, superMethod, false, useSingleLineReference);
+        PsiUtils.addReference(method, getSuperMethod(), false, useSingleLineReference);
     }
 }
@@ -0,0 +1,295 @@
+package com.perniciouspenguins.ideaz.javadoc.inspections;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiDocCommentOwner;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.javadoc.PsiDocComment;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.perniciouspenguins.ideaz.javadoc.util.DocFingerprint;
+import com.perniciouspenguins.ideaz.javadoc.util.EffectiveDocResolver;
+import com.perniciouspenguins.ideaz.javadoc.util.PsiUtils;
+import com.perniciouspenguins.ideaz.javadoc.util.SuperMethodResolver;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Class FileAnalysis holds the JavaDoc analysis of the members of a single file: whether a member has
+ * JavaDoc, the fingerprint of its JavaDoc and how its JavaDoc relates to that of its super method. The
+ * super method itself is looked up in the override index. Members are analyzed on first request and the
+ * results are shared by all inspections. The analysis checks for cancellation between members and keeps
+ * every result it completed, so a highlighting pass that is cancelled because the document changed
+ * resumes where it stopped as long as the analysis stays valid.
+ * <p/>
+ * The analysis is cached on the file until the file itself or anything outside a code block in the
+ * project changes, which covers changes to super classes and to the JavaDoc of super methods.
+ */
+final class FileAnalysis
+{
+    private static final Key<CachedValue<FileAnalysis>> ANALYSIS_KEY = Key.create( "JavaDocManager.fileAnalysis" );
+
+    /**
+     * The kinds of inconsistency between the JavaDoc of a method and that of its super method.
+     */
+    enum Inconsistency
+    {
+        /** The JavaDoc is consistent **/
+        NONE,
+        /** The method inherits JavaDoc but has no super method **/
+        NO_SUPER_METHOD_TO_INHERIT_DOC_FROM,
+        /** The JavaDoc differs from the JavaDoc of the super method **/
+        DIFFERS_FROM_PARENT,
+        /** The method inherits JavaDoc but the super method has none **/
+        NO_JAVADOC_IN_SUPER_METHOD_TO_INHERIT_FROM,
+        /** The super method has no JavaDoc and can be changed **/
+        PARENT_WITHOUT_JAVADOC
+    }
+
+    private final ConcurrentMap<PsiDocCommentOwner, MemberAnalysis> members =
+            new ConcurrentHashMap<PsiDocCommentOwner, MemberAnalysis>();
+    private final ConcurrentMap<PsiClass, Boolean> methodsWithoutJavaDoc = new ConcurrentHashMap<PsiClass, Boolean>();
+
+    /**
+     * The analysis of a single member.
+     */
+    static final class MemberAnalysis
+    {
+        private final PsiDocCommentOwner member;
+        private final boolean hasJavaDoc;
+        private volatile DocFingerprint docFingerprint = null;
+        private volatile Inconsistency inconsistency = null;
+
+        /**
+         * Constructor MemberAnalysis creates the analysis of the specified member. Only the presence of
+         * JavaDoc is determined up front; the fingerprint is computed on first request.
+         *
+         * @param member the member to analyze
+         */
+        private MemberAnalysis( PsiDocCommentOwner member )
+        {
+            this.member = member;
+            this.hasJavaDoc = null != member.getDocComment();
+        }
+
+        /**
+         * Method hasJavaDoc determines whether the member has JavaDoc.
+         *
+         * @return boolean true if the member has JavaDoc, false otherwise.
+         */
+        boolean hasJavaDoc()
+        {
+            return hasJavaDoc;
+        }
+
+        /**
+         * Method getDocFingerprint returns the fingerprint of the JavaDoc of the member.
+         *
+         * @return DocFingerprint the fingerprint of the JavaDoc or null if the member has none.
+         */
+        DocFingerprint getDocFingerprint()
+        {
+            DocFingerprint fingerprint = docFingerprint;
+            if( null == fingerprint && hasJavaDoc )
+            {
+                PsiDocComment docComment = member.getDocComment();
+                if( null != docComment )
+                {
+                    fingerprint = DocFingerprint.of( docComment );
+                    docFingerprint = fingerprint;
+                }
+            }
+            return fingerprint;
+        }
+
+        /**
+         * Method getSuperMethod returns the method that the member overrides or implements, as cached by
+         * the override index.
+         *
+         * @return PsiMethod the super method or null if there is none.
+         */
+        PsiMethod getSuperMethod()
+        {
+            return member instanceof PsiMethod ? SuperMethodResolver.getSuperMethod( (PsiMethod) member ) : null;
+        }
+    }
+
+    /**
+     * Method getInstance returns the analysis of the specified file.
+     *
+     * @param psiFile the file
+     * @return FileAnalysis the cached analysis of the file.
+     */
+    static FileAnalysis getInstance( final PsiFile psiFile )
+    {
+        return CachedValuesManager.getManager( psiFile.getProject() ).getCachedValue(
+                psiFile, ANALYSIS_KEY, new CachedValueProvider<FileAnalysis>()
+        {
+            /**
+             * Method compute creates an empty analysis that is filled on demand.
+             * @return the analysis, valid until the file or the project structure is modified.
+             */
+            public Result<FileAnalysis> compute()
+            {
+                return Result.create( new FileAnalysis(), psiFile,
+                                      PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT );
+            }
+        }, false );
+    }
+
+    /**
+     * Method analyze returns the analysis of the specified member from the analysis of its file.
+     *
+     * @param member the member
+     * @return MemberAnalysis the analysis of the member.
+     */
+    static MemberAnalysis analyze( PsiDocCommentOwner member )
+    {
+        PsiFile psiFile = member.getContainingFile();
+        return null != psiFile ? getInstance( psiFile ).getMember( member ) : new MemberAnalysis( member );
+    }
+
+    /**
+     * Method getMember returns the analysis of the specified member of this file.
+     *
+     * @param member the member
+     * @return MemberAnalysis the analysis of the member.
+     */
+    MemberAnalysis getMember( PsiDocCommentOwner member )
+    {
+        MemberAnalysis analysis = members.get( member );
+        if( null == analysis )
+        {
+            analysis = new MemberAnalysis( member );
+            MemberAnalysis existing = members.putIfAbsent( member, analysis );
+            if( null != existing )
+            {
+                analysis = existing;
+            }
+        }
+        return analysis;
+    }
+
+    /**
+     * Method hasMethodsWithoutJavaDoc determines whether any method of the specified class of this file
+     * lacks JavaDoc.
+     *
+     * @param psiClass the class
+     * @return boolean true if at least one method has no JavaDoc, false otherwise.
+     */
+    boolean hasMethodsWithoutJavaDoc( PsiClass psiClass )
+    {
+        Boolean result = methodsWithoutJavaDoc.get( psiClass );
+        if( null == result )
+        {
+            result = Boolean.FALSE;
+            for( PsiMethod psiMethod : psiClass.getMethods() )
+            {
+                ProgressManager.checkCanceled();
+                if( !getMember( psiMethod ).hasJavaDoc() )
+                {
+                    result = Boolean.TRUE;
+                    break;
+                }
+            }
+            methodsWithoutJavaDoc.put( psiClass, result );
+        }
+        return result;
+    }
+
+    /**
+     * Method getInconsistency returns how the JavaDoc of the specified method relates to that of the
+     * specified super method. The result is cached when the super method is the one found by the analysis.
+     *
+     * @param method the method with JavaDoc
+     * @param superMethod the super method, optionally describing JavaDoc
+     * @return Inconsistency the kind of inconsistency.
+     */
+    static Inconsistency getInconsistency( PsiMethod method, PsiMethod superMethod )
+    {
+        MemberAnalysis analysis = analyze( method );
+        if( analysis.getSuperMethod() != superMethod )
+        {
+            return classify( method, superMethod );
+        }
+        Inconsistency inconsistency = analysis.inconsistency;
+        if( null == inconsistency )
+        {
+            inconsistency = classify( method, superMethod );
+            analysis.inconsistency = inconsistency;
+        }
+        return inconsistency;
+    }
+
+    /**
+     * Method classify determines how the JavaDoc of the specified method relates to that of the specified
+     * super method.
+     *
+     * @param method the method with JavaDoc
+     * @param superMethod the super method, optionally describing JavaDoc
+     * @return Inconsistency the kind of inconsistency.
+     */
+    static Inconsistency classify( PsiMethod method, PsiMethod superMethod )
+    {
+        PsiDocComment docComment = method.getDocComment();
+        if( !method.isConstructor() && null != docComment )
+        {
+            if( null == superMethod && PsiUtils.definesInheritDocTag( method ) && !PsiUtils.isAnonymous( method ) )
+            {
+                return Inconsistency.NO_SUPER_METHOD_TO_INHERIT_DOC_FROM;
+            }
+            else if( null != superMethod && !PsiUtils.isFromObjectClass( superMethod ) )
+            {
+                PsiDocComment superDocComment = superMethod.getDocComment();
+                if( null != superDocComment &&
+                    !docsAreEqual( method, superMethod ) &&
+                    !PsiUtils.hasReferenceToParentMethod( method, superMethod ) &&
+                    !PsiUtils.hasInheritedJavaDoc( method, superMethod ) )
+                {
+                    return Inconsistency.DIFFERS_FROM_PARENT;
+                }
+                else if( null == superDocComment && PsiUtils.definesInheritDocTag( method ) )
+                {
+                    return Inconsistency.NO_JAVADOC_IN_SUPER_METHOD_TO_INHERIT_FROM;
+                }
+                // If we cannot write to the parent there's no sense in
+                // allowing options to change the parent
+                else if( null == superDocComment && superMethod.getContainingFile().isWritable() )
+                {
+                    return Inconsistency.PARENT_WITHOUT_JAVADOC;
+                }
+            }
+        }
+        return Inconsistency.NONE;
+    }
+
+    /**
+     * Method docsAreEqual compares the JavaDoc of a method with the JavaDoc of its super method through their
+     * cached fingerprints. When the super method inherits its JavaDoc, the JavaDoc in effect for the super
+     * method is compared as well.
+     *
+     * @param method the method
+     * @param superMethod the super method
+     * @return boolean true if the method defines the same JavaDoc as the super method, false otherwise.
+     */
+    private static boolean docsAreEqual( PsiMethod method, PsiMethod superMethod )
+    {
+        DocFingerprint fingerprint = analyze( method ).getDocFingerprint();
+        if( null == fingerprint )
+        {
+            return false;
+        }
+        if( fingerprint.matches( analyze( superMethod ).getDocFingerprint() ) )
+        {
+            return true;
+        }
+        PsiDocComment effectiveDoc = EffectiveDocResolver.getEffectiveDoc( superMethod );
+        return null != effectiveDoc && effectiveDoc != superMethod.getDocComment() &&
+               fingerprint.matches( DocFingerprint.of( effectiveDoc ) );
+    }
+}
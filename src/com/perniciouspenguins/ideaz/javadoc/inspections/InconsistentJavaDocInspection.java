@@ -6,16 +6,15 @@ import com.intellij.codeInspection.ProblemDescriptor;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.psi.PsiIdentifier;
 import com.intellij.psi.PsiMethod;
-import com.intellij.psi.javadoc.PsiDocComment;
 import com.perniciouspenguins.ideaz.javadoc.fixes.AddReference;
 import com.perniciouspenguins.ideaz.javadoc.fixes.CopyFromParent;
 import com.perniciouspenguins.ideaz.javadoc.fixes.LocalQuickFixBase;
 import com.perniciouspenguins.ideaz.javadoc.fixes.MoveToParentAndIntroduceReference;
 import com.perniciouspenguins.ideaz.javadoc.fixes.ReplaceParentDoc;
-import com.perniciouspenguins.ideaz.javadoc.util.PsiUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -64,10 +63,14 @@ public class InconsistentJavaDocInspection extends JavaDocBaseInspection
                                                                @NotNull InspectionManager manager,
                                                                boolean onTheFly )
     {
-        List<ProblemDescriptor> problems = new ArrayList<ProblemDescriptor>();
-        List<LocalQuickFix> fixes = new ArrayList<LocalQuickFix>();
+        PsiMethod superMethod = getSuperMethod( method );
+        if( FileAnalysis.getInconsistency( method, superMethod ) == FileAnalysis.Inconsistency.NONE )
+        {
+            return Collections.emptyList();
+        }
 
-        String descriptionTemplate = findFixesForInconsistency( getSuperMethod( method ), method, fixes );
+        List<LocalQuickFix> fixes = new ArrayList<LocalQuickFix>();
+        String descriptionTemplate = findFixesForInconsistency( superMethod, method, fixes );
         if( descriptionTemplate != null )
         {
             PsiIdentifier psiIdentifier = method.getNameIdentifier();
@@ -80,10 +83,10 @@ public class InconsistentJavaDocInspection extends JavaDocBaseInspection
                                                                                                new LocalQuickFix[fixes
                                                                                                        .size()] ),
                                                                                        ProblemHighlightType.GENERIC_ERROR_OR_WARNING );
-                problems.add( problemDescriptor );
+                return Collections.singletonList( problemDescriptor );
             }
         }
-        return problems;
+        return Collections.emptyList();
     }
 
     /**
@@ -100,38 +103,26 @@ public class InconsistentJavaDocInspection extends JavaDocBaseInspection
     private String findFixesForInconsistency( PsiMethod superMethod, PsiMethod method, List<LocalQuickFix> fixes )
     {
         String descriptionTemplate = null;
-        PsiDocComment docComment = method.getDocComment();
-        if( !method.isConstructor() && null != docComment )
+        switch( FileAnalysis.getInconsistency( method, superMethod ) )
         {
-            if( null == superMethod && PsiUtils.definesInheritDocTag( method ) && !PsiUtils.isAnonymous( method ) )
-            {
+            case NO_SUPER_METHOD_TO_INHERIT_DOC_FROM:
                 descriptionTemplate = LocalQuickFixBase.NO_SUPER_METHOD_TO_INHERIT_DOC_FROM;
-            }
-            else if( null != superMethod && !PsiUtils.isFromObjectClass( superMethod ) )
-            {
-                PsiDocComment superDocComment = superMethod.getDocComment();
-                if( null != superDocComment &&
-                    !PsiUtils.docsAreEqual( docComment, superDocComment ) &&
-                    !PsiUtils.hasReferenceToParentMethod( method, superMethod ) &&
-                    !PsiUtils.hasInheritedJavaDoc( method, superMethod ) )
-                {
-                    descriptionTemplate = LocalQuickFixBase.JAVADOC_DIFFERS_FROM_PARENT;
-                    fixes.add( new AddReference( method, superMethod, useSingleLineReferences ) );
-                    fixes.add( new CopyFromParent( method, superMethod ) );
-                }
-                else if( null == superDocComment && PsiUtils.definesInheritDocTag( method ) )
-                {
-                    descriptionTemplate = LocalQuickFixBase.NO_JAVADOC_IN_SUPER_METHOD_TO_INHERIT_FROM;
-                }
-                // If we cannot write to the parent there's no sense in
-                // allowing options to change the parent
-                else if( null == superDocComment && superMethod.getContainingFile().isWritable() )
-                {
-                    descriptionTemplate = LocalQuickFixBase.JAVADOC_DIFFERS_FROM_PARENT;
-                    fixes.add( new MoveToParentAndIntroduceReference( method, superMethod, useSingleLineReferences ) );
-                    fixes.add( new ReplaceParentDoc( method, superMethod ) );
-                }
-            }
+                break;
+            case DIFFERS_FROM_PARENT:
+                descriptionTemplate = LocalQuickFixBase.JAVADOC_DIFFERS_FROM_PARENT;
+                fixes.add( new AddReference( method, superMethod, useSingleLineReferences ) );
+                fixes.add( new CopyFromParent( method, superMethod ) );
+                break;
+            case NO_JAVADOC_IN_SUPER_METHOD_TO_INHERIT_FROM:
+                descriptionTemplate = LocalQuickFixBase.NO_JAVADOC_IN_SUPER_METHOD_TO_INHERIT_FROM;
+                break;
+            case PARENT_WITHOUT_JAVADOC:
+                descriptionTemplate = LocalQuickFixBase.JAVADOC_DIFFERS_FROM_PARENT;
+                fixes.add( new MoveToParentAndIntroduceReference( method, superMethod, useSingleLineReferences ) );
+                fixes.add( new ReplaceParentDoc( method, superMethod ) );
+                break;
+            default:
+                break;
         }
         return descriptionTemplate;
     }
@@ -3,9 +3,11 @@ package com.perniciouspenguins.ideaz.javadoc.inspections;
 import com.intellij.codeInspection.BaseJavaLocalInspectionTool;
 import com.intellij.codeInspection.InspectionManager;
 import com.intellij.codeInspection.ProblemDescriptor;
-import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiAnonymousClass;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiField;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.javadoc.PsiDocComment;
@@ -16,7 +18,7 @@ import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -64,148 +66,135 @@ public abstract class JavaDocBaseInspection extends BaseJavaLocalInspectionTool
     public abstract String getShortName();
 
     /**
-     * Override this to report problems at class level.
+     * Method buildVisitor creates the visitor that reports the problems of the classes, methods and fields of a
+     * file. Inspections already run inside a read action, so the visitor accesses the PSI directly.
      *
-     * @param psiClass   to check.
-     * @param manager    InspectionManager to ask for ProblemDescriptor's from.
+     * @param holder     the holder to register the problems with
      * @param isOnTheFly true if called during on the fly editor highlighting. Called from Inspect Code action otherwise.
      *
-     * @return <code>null</code> if no problems found or not applicable at class level.
+     * @return PsiElementVisitor the visitor.
      */
-    @Nullable
-    public ProblemDescriptor[] checkClass( @NotNull final PsiClass psiClass,
-                                           @NotNull final InspectionManager manager,
-                                           final boolean isOnTheFly )
+    @NotNull
+    public PsiElementVisitor buildVisitor( @NotNull final ProblemsHolder holder, final boolean isOnTheFly )
     {
-        final List<ProblemDescriptor> descriptors = new ArrayList<ProblemDescriptor>();
-        ApplicationManager.getApplication().runReadAction( new Runnable()
+        final int accessMask = PsiUtils.getAccessMask( methodDetectionLevel );
+        return new JavaElementVisitor()
         {
             /**
-             * Method run contains the action that needs to be executed when the dispatch thread
-             * allows write actions.
+             * Method visitClass reports the problems at class level.
+             * @param psiClass the class to check
              */
-            public void run()
+            public void visitClass( PsiClass psiClass )
             {
-                boolean isInnerClass = PsiUtils.isInnerClass( psiClass );
-                boolean isAnonymous = PsiUtils.isAnonymous( psiClass );
+                inspectClass( psiClass, holder, isOnTheFly );
+            }
 
-                if( (isInnerClass && !checkInnerClasses) || (isAnonymous && !checkAnonymousClasses) )
-                {
-                    return;
-                }
+            /**
+             * Method visitMethod reports the problems at method level.
+             * @param method the method to check
+             */
+            public void visitMethod( PsiMethod method )
+            {
+                inspectMethod( method, accessMask, holder, isOnTheFly );
+            }
 
-                descriptors.addAll( determineIntroduceDocOptions( psiClass, manager, isOnTheFly ) );
+            /**
+             * Method visitField reports the problems at field level.
+             * @param field the field to check
+             */
+            public void visitField( PsiField field )
+            {
+                inspectField( field, holder, isOnTheFly );
             }
-        } );
-        if( descriptors.isEmpty() )
-        {
-            return super.checkClass( psiClass, manager, isOnTheFly );
-        }
-        else
+        };
+    }
+
+    /**
+     * Method inspectClass reports the problems of the specified class.
+     *
+     * @param psiClass   to check.
+     * @param holder     the holder to register the problems with
+     * @param isOnTheFly true if called during on the fly editor highlighting. Called from Inspect Code action otherwise.
+     */
+    private void inspectClass( PsiClass psiClass, ProblemsHolder holder, boolean isOnTheFly )
+    {
+        boolean isInnerClass = PsiUtils.isInnerClass( psiClass );
+        boolean isAnonymous = PsiUtils.isAnonymous( psiClass );
+
+        if( (isInnerClass && !checkInnerClasses) || (isAnonymous && !checkAnonymousClasses) )
         {
-            return descriptors.toArray( new ProblemDescriptor[descriptors.size()] );
+            return;
         }
+
+        registerProblems( holder, determineIntroduceDocOptions( psiClass, holder.getManager(), isOnTheFly ) );
     }
 
     /**
-     * Override this to report problems at method level.
+     * Method inspectMethod reports the problems of the specified method.
      *
      * @param method     to check.
-     * @param manager    InspectionManager to ask for ProblemDescriptor's from.
+     * @param accessMask the access levels to check, see PsiUtils.getAccessMask
+     * @param holder     the holder to register the problems with
      * @param isOnTheFly true if called during on the fly editor highlighting. Called from Inspect Code action otherwise.
-     *
-     * @return <code>null</code> if no problems found or not applicable at method level.
      */
-    @Nullable
-    public ProblemDescriptor[] checkMethod( @NotNull final PsiMethod method,
-                                            @NotNull final InspectionManager manager,
-                                            final boolean isOnTheFly )
+    private void inspectMethod( PsiMethod method, int accessMask, ProblemsHolder holder, boolean isOnTheFly )
     {
-        final List<ProblemDescriptor> descriptors = new ArrayList<ProblemDescriptor>();
-        ApplicationManager.getApplication().runReadAction( new Runnable()
-        {
-            /**
-             * Method run contains the action that needs to be executed when the dispatch thread
-             * allows write actions.
-             */
-            public void run()
-            {
-                boolean isAnonymous = PsiUtils.isAnonymous( method.getContainingClass() );
-                boolean isInnerClass = PsiUtils.isInnerClass( method.getContainingClass() );
+        boolean isAnonymous = PsiUtils.isAnonymous( method.getContainingClass() );
+        boolean isInnerClass = PsiUtils.isInnerClass( method.getContainingClass() );
 
-                if( !PsiUtils.accessModifierLevelInRange( method.getModifierList(), methodDetectionLevel ) ||
-                    ( isAnonymous && !checkAnonymousClasses ) ||
-                    ( isInnerClass && !checkInnerClasses ) )
-                {
-                    return;
-                }
+        if( !PsiUtils.accessLevelInMask( method.getModifierList(), accessMask ) ||
+            ( isAnonymous && !checkAnonymousClasses ) ||
+            ( isInnerClass && !checkInnerClasses ) )
+        {
+            return;
+        }
 
-                PsiDocComment docComment = method.getDocComment();
-                if( docComment == null )
-                {
-                    descriptors.addAll( determineIntroduceDocOptions( method, manager, isOnTheFly ) );
-                }
-                else
-                {
-                    descriptors.addAll( determineDocDifferences( method, manager, isOnTheFly ) );
-                }
-            }
-        } );
-        if( descriptors.isEmpty() )
+        PsiDocComment docComment = method.getDocComment();
+        if( docComment == null )
         {
-            return super.checkMethod( method, manager, isOnTheFly );
+            registerProblems( holder, determineIntroduceDocOptions( method, holder.getManager(), isOnTheFly ) );
         }
         else
         {
-            return descriptors.toArray( new ProblemDescriptor[descriptors.size()] );
+            registerProblems( holder, determineDocDifferences( method, holder.getManager(), isOnTheFly ) );
         }
     }
 
     /**
-     * Override this to report problems at field level.
+     * Method inspectField reports the problems of the specified field.
      *
      * @param field      to check.
-     * @param manager    InspectionManager to ask for ProblemDescriptor's from.
+     * @param holder     the holder to register the problems with
      * @param isOnTheFly true if called during on the fly editor highlighting. Called from Inspect Code action otherwise.
-     *
-     * @return <code>null</code> if no problems found or not applicable at field level.
      */
-    @Nullable
-    public ProblemDescriptor[] checkField( @NotNull final PsiField field,
-                                           @NotNull final InspectionManager manager,
-                                           final boolean isOnTheFly )
+    private void inspectField( PsiField field, ProblemsHolder holder, boolean isOnTheFly )
     {
-        final List<ProblemDescriptor> descriptors = new ArrayList<ProblemDescriptor>();
-        ApplicationManager.getApplication().runReadAction( new Runnable()
-        {
-            /**
-             * Method run contains the action that needs to be executed when the dispatch thread
-             * allows write actions.
-             */
-            public void run()
-            {
-                boolean isAnonymous = PsiUtils.isAnonymous( field.getContainingClass() );
-                boolean isInnerClass = PsiUtils.isInnerClass( field.getContainingClass() );
+        boolean isAnonymous = PsiUtils.isAnonymous( field.getContainingClass() );
+        boolean isInnerClass = PsiUtils.isInnerClass( field.getContainingClass() );
 
-                if( ( isAnonymous && !checkAnonymousClasses ) || ( isInnerClass && !checkInnerClasses ) )
-                {
-                    return;
-                }
+        if( ( isAnonymous && !checkAnonymousClasses ) || ( isInnerClass && !checkInnerClasses ) )
+        {
+            return;
+        }
 
-                PsiDocComment docComment = field.getDocComment();
-                if( docComment == null )
-                {
-                    descriptors.addAll( determineIntroduceDocOptions( field, manager, isOnTheFly ) );
-                }
-            }
-        } );
-        if( descriptors.isEmpty() )
+        PsiDocComment docComment = field.getDocComment();
+        if( docComment == null )
         {
-            return super.checkField( field, manager, isOnTheFly );
+            registerProblems( holder, determineIntroduceDocOptions( field, holder.getManager(), isOnTheFly ) );
         }
-        else
+    }
+
+    /**
+     * Method registerProblems registers the specified problems with the holder.
+     *
+     * @param holder   the holder to register the problems with
+     * @param problems the problems that were found, usually none
+     */
+    private static void registerProblems( ProblemsHolder holder, List<ProblemDescriptor> problems )
+    {
+        for( int i = 0; i < problems.size(); i++ )
         {
-            return descriptors.toArray( new ProblemDescriptor[descriptors.size()] );
+            holder.registerProblem( problems.get( i ) );
         }
     }
 
@@ -222,7 +211,7 @@ public abstract class JavaDocBaseInspection extends BaseJavaLocalInspectionTool
                                                                     InspectionManager manager,
                                                                     boolean onTheFly )
     {
-        return new ArrayList<ProblemDescriptor>();
+        return Collections.emptyList();
     }
 
     /**
@@ -239,7 +228,7 @@ public abstract class JavaDocBaseInspection extends BaseJavaLocalInspectionTool
                                                                     InspectionManager manager,
                                                                     boolean onTheFly )
     {
-        return new ArrayList<ProblemDescriptor>();
+        return Collections.emptyList();
     }
 
     /**
@@ -260,7 +249,7 @@ public abstract class JavaDocBaseInspection extends BaseJavaLocalInspectionTool
                                                                InspectionManager manager,
                                                                boolean onTheFly )
     {
-        return new ArrayList<ProblemDescriptor>();
+        return Collections.emptyList();
     }
 
     /**
@@ -276,12 +265,13 @@ public abstract class JavaDocBaseInspection extends BaseJavaLocalInspectionTool
                                                                     InspectionManager manager,
                                                                     boolean onTheFly )
     {
-        return new ArrayList<ProblemDescriptor>();
+        return Collections.emptyList();
     }
 
 
     /**
-     * Method to find the specified psiMethod in the parent class/interface
+     * Method to find the specified psiMethod in the parent class/interface. The result is taken from the
+     * analysis of the containing file, which is shared by all inspections.
      *
      * @param psiMethod the method of which the super implementation/definition is requested
      *
@@ -291,15 +281,11 @@ public abstract class JavaDocBaseInspection extends BaseJavaLocalInspectionTool
     @Nullable
     protected PsiMethod getSuperMethod( PsiMethod psiMethod )
     {
-        if( null != psiMethod )
+        if( null == psiMethod || !psiMethod.isValid() )
         {
-            PsiClass containingClass = psiMethod.getContainingClass();
-            if( null != containingClass )
-            {
-                return PsiUtils.checkParents( containingClass.getSuperClass(), psiMethod );
-            }
+            return null;
         }
-        return null;
+        return FileAnalysis.analyze( psiMethod ).getSuperMethod();
     }
 
     /**
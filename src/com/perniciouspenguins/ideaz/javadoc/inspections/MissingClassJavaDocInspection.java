@@ -5,8 +5,8 @@ import com.intellij.codeInspection.LocalQuickFix;
 import com.intellij.codeInspection.ProblemDescriptor;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiIdentifier;
-import com.intellij.psi.PsiMethod;
 import com.perniciouspenguins.ideaz.javadoc.fixes.GenerateForAllMethods;
 import com.perniciouspenguins.ideaz.javadoc.fixes.GenerateFromClass;
 import com.perniciouspenguins.ideaz.javadoc.fixes.LocalQuickFixBase;
@@ -17,6 +17,7 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -70,8 +71,7 @@ public class MissingClassJavaDocInspection extends JavaDocBaseInspection
                                                                     InspectionManager manager,
                                                                     boolean onTheFLy )
     {
-        List<ProblemDescriptor> problems = new ArrayList<ProblemDescriptor>();
-        List<LocalQuickFixBase> fixes = new ArrayList<LocalQuickFixBase>();
+        List<ProblemDescriptor> problems = Collections.emptyList();
         ProblemDescriptor problemDescriptor;
         String descriptionTemplate = null;
 
@@ -81,16 +81,9 @@ public class MissingClassJavaDocInspection extends JavaDocBaseInspection
         }
 
         // Check all methods and allow generation of JavaDoc for all methods at once
-        PsiMethod[] psiMethods = psiClass.getMethods();
-        boolean foundMethodsWithoutJavaDoc = false;
-        for( int i = 0; !foundMethodsWithoutJavaDoc && i < psiMethods.length; i++ )
-        {
-            PsiMethod psiMethod = psiMethods[i];
-            if( null == psiMethod.getDocComment() )
-            {
-                foundMethodsWithoutJavaDoc = true;
-            }
-        }
+        PsiFile psiFile = psiClass.getContainingFile();
+        boolean foundMethodsWithoutJavaDoc = null != psiFile &&
+                                             FileAnalysis.getInstance( psiFile ).hasMethodsWithoutJavaDoc( psiClass );
 
         PsiIdentifier psiIdentifier = psiClass.getNameIdentifier();
         if( psiClass.getDocComment() == null )
@@ -107,14 +100,14 @@ public class MissingClassJavaDocInspection extends JavaDocBaseInspection
             {
                 descriptionTemplate = LocalQuickFixBase.CLASS_DEFINITION_NO_JAVADOC;
             }
-            fixes.add( new GenerateFromClass( psiClass ) );
             if( null != psiIdentifier && null != descriptionTemplate )
             {
                 problemDescriptor = manager.createProblemDescriptor( psiIdentifier,
                                                                      descriptionTemplate,
                                                                      onTheFLy,
-                                                                     fixes.toArray( new LocalQuickFix[fixes.size()] ),
+                                                                     new LocalQuickFix[]{ new GenerateFromClass( psiClass ) },
                                                                      ProblemHighlightType.GENERIC_ERROR_OR_WARNING );
+                problems = new ArrayList<ProblemDescriptor>( 2 );
                 problems.add( problemDescriptor );
             }
         }
@@ -122,15 +115,17 @@ public class MissingClassJavaDocInspection extends JavaDocBaseInspection
         if( foundMethodsWithoutJavaDoc && !PsiUtils.isAnonymous( psiClass ) )
         {
             descriptionTemplate = LocalQuickFixBase.ONE_OR_MORE_METHODS_DO_NOT_DEFINE_JAVADOC;
-            fixes.clear();
-            fixes.add( new GenerateForAllMethods( psiClass ) );
             if( null != psiIdentifier )
             {
                 problemDescriptor = manager.createProblemDescriptor( psiIdentifier,
                                                                      descriptionTemplate,
                                                                      onTheFLy,
-                                                                     fixes.toArray( new LocalQuickFix[fixes.size()] ),
+                                                                     new LocalQuickFix[]{ new GenerateForAllMethods( psiClass ) },
                                                                      ProblemHighlightType.GENERIC_ERROR_OR_WARNING );
+                if( problems.isEmpty() )
+                {
+                    problems = new ArrayList<ProblemDescriptor>( 1 );
+                }
                 problems.add( problemDescriptor );
             }
         }
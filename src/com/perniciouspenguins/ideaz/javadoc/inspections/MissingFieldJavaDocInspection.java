@@ -10,6 +10,7 @@ import com.perniciouspenguins.ideaz.javadoc.fixes.LocalQuickFixBase;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -48,13 +49,11 @@ public class MissingFieldJavaDocInspection extends JavaDocBaseInspection {
     protected List<ProblemDescriptor> determineIntroduceDocOptions(PsiField field,
                                                                    InspectionManager manager,
                                                                    boolean onTheFly ) {
-        List<ProblemDescriptor> problems = new ArrayList<ProblemDescriptor>();
-        List<LocalQuickFixBase> fixes    = new ArrayList<LocalQuickFixBase>();
-
         ProblemDescriptor problemDescriptor;
         String descriptionTemplate;
 
         if (field.getDocComment() == null) {
+            List<LocalQuickFixBase> fixes = new ArrayList<LocalQuickFixBase>();
             descriptionTemplate = LocalQuickFixBase.FIELD_DEFINITION_NO_JAVADOC;
             fixes.add(new GenerateFromField(field));
 
@@ -63,8 +62,8 @@ public class MissingFieldJavaDocInspection extends JavaDocBaseInspection {
                                                                 onTheFly,
                                                                 fixes.toArray(new LocalQuickFix[fixes.size()]),
                                                                 ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
-            problems.add(problemDescriptor);
+            return Collections.singletonList(problemDescriptor);
         }
-        return problems;
+        return Collections.emptyList();
     }
 }
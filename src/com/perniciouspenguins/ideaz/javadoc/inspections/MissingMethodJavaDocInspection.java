@@ -24,6 +24,7 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -82,7 +83,6 @@ public class MissingMethodJavaDocInspection extends JavaDocBaseInspection
                                                                   InspectionManager manager,
                                                                   boolean onTheFly )
   {
-    List<ProblemDescriptor> problems = new ArrayList<ProblemDescriptor>();
     List<LocalQuickFixBase> fixes = new ArrayList<LocalQuickFixBase>();
     ProblemDescriptor problemDescriptor;
 
@@ -97,10 +97,10 @@ public class MissingMethodJavaDocInspection extends JavaDocBaseInspection
                                                              onTheFly,
                                                              fixes.toArray( new LocalQuickFix[fixes.size()] ),
                                                              ProblemHighlightType.GENERIC_ERROR_OR_WARNING );
-        problems.add( problemDescriptor );
+        return Collections.singletonList( problemDescriptor );
       }
     }
-    return problems;
+    return Collections.emptyList();
   }
 
   /**
@@ -0,0 +1,329 @@
+package com.perniciouspenguins.ideaz.javadoc.templates;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class CompiledTemplate is the precompiled form of a template text. The text is split into literal
+ * segments and <code>${TOKEN}</code> slots once, so rendering is a single pass over the segments
+ * without going through Velocity. Every distinct token is assigned a slot number which indexes the
+ * values of a {@link RenderContext}.
+ *
+ * Templates that use anything beyond plain <code>${TOKEN}</code> and <code>$!{TOKEN}</code>
+ * references, like Velocity directives, are flagged so the caller can fall back to Velocity.
+ */
+public final class CompiledTemplate
+{
+    private static final String[] VELOCITY_DIRECTIVES = new String[]{
+            "if", "elseif", "else", "end", "set", "foreach", "macro", "include", "parse", "stop", "break",
+            "evaluate", "define"};
+
+    private final String text;
+    private final String[] literals;
+    private final String[] tokens;
+    private final int[] tokenSlots;
+    private final Map<String, Integer> slots;
+    private final String[] slotTokens;
+    private final boolean[] quiet;
+    private final boolean requiresVelocity;
+    private final int literalLength;
+
+    /**
+     * Constructor CompiledTemplate creates a new CompiledTemplate instance.
+     *
+     * @param text the normalized template text
+     * @param literals the literal segments surrounding the tokens
+     * @param tokens the token names in order of appearance
+     * @param quiet per token, true when it was declared as a quiet reference
+     * @param requiresVelocity true if the text uses Velocity features that are not rendered natively
+     */
+    private CompiledTemplate( String text, String[] literals, String[] tokens, boolean[] quiet,
+                              boolean requiresVelocity )
+    {
+        this.text = text;
+        this.literals = literals;
+        this.tokens = tokens;
+        this.quiet = quiet;
+        this.requiresVelocity = requiresVelocity;
+
+        Map<String, Integer> slotMap = new HashMap<String, Integer>();
+        tokenSlots = new int[tokens.length];
+        for( int i = 0; i < tokens.length; i++ )
+        {
+            Integer slot = slotMap.get( tokens[i] );
+            if( null == slot )
+            {
+                slot = slotMap.size();
+                slotMap.put( tokens[i], slot );
+            }
+            tokenSlots[i] = slot;
+        }
+        this.slots = Collections.unmodifiableMap( slotMap );
+        slotTokens = new String[slotMap.size()];
+        for( Map.Entry<String, Integer> entry : slotMap.entrySet() )
+        {
+            slotTokens[entry.getValue()] = entry.getKey();
+        }
+
+        int length = 0;
+        for( String literal : literals )
+        {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Method compile splits the specified template text into literal segments and token slots.
+     * Empty lines are collapsed the same way TemplateManager always did before merging.
+     *
+     * @param templateText the text of the template
+     * @return CompiledTemplate the compiled form of the text.
+     */
+    public static CompiledTemplate compile( String templateText )
+    {
+        String text = null == templateText ? "" : templateText.replace( "\n\n", "\n" );
+
+        List<String> literals = new ArrayList<String>();
+        List<String> tokens = new ArrayList<String>();
+        List<Boolean> quiet = new ArrayList<Boolean>();
+        boolean requiresVelocity = false;
+
+        StringBuilder literal = new StringBuilder();
+        int length = text.length();
+        int i = 0;
+        while( !requiresVelocity && i < length )
+        {
+            char c = text.charAt( i );
+            if( c == '$' )
+            {
+                int start = i + 1;
+                boolean isQuiet = start < length && text.charAt( start ) == '!';
+                if( isQuiet )
+                {
+                    start++;
+                }
+                if( start < length && text.charAt( start ) == '{' )
+                {
+                    int end = text.indexOf( '}', start );
+                    String token = end == -1 ? null : text.substring( start + 1, end );
+                    if( null == token || !isIdentifier( token ) )
+                    {
+                        // Method calls, properties or unbalanced references are left to Velocity
+                        requiresVelocity = true;
+                    }
+                    else
+                    {
+                        literals.add( literal.toString() );
+                        literal.setLength( 0 );
+                        tokens.add( token );
+                        quiet.add( isQuiet );
+                        i = end + 1;
+                        continue;
+                    }
+                }
+                else if( start < length && Character.isJavaIdentifierStart( text.charAt( start ) ) )
+                {
+                    // Shorthand reference like $NAME
+                    requiresVelocity = true;
+                }
+            }
+            else if( c == '#' && isDirective( text, i + 1 ) )
+            {
+                requiresVelocity = true;
+            }
+            else if( c == '\\' && i + 1 < length && (text.charAt( i + 1 ) == '$' || text.charAt( i + 1 ) == '#') )
+            {
+                // Escaped references only make sense to Velocity
+                requiresVelocity = true;
+            }
+            literal.append( c );
+            i++;
+        }
+        literals.add( literal.toString() );
+
+        boolean[] quietFlags = new boolean[quiet.size()];
+        for( int j = 0; j < quietFlags.length; j++ )
+        {
+            quietFlags[j] = quiet.get( j );
+        }
+        return new CompiledTemplate( text,
+                                     literals.toArray( new String[literals.size()] ),
+                                     tokens.toArray( new String[tokens.size()] ),
+                                     quietFlags,
+                                     requiresVelocity );
+    }
+
+    /**
+     * Method isIdentifier determines whether the specified token is a plain Velocity identifier.
+     *
+     * @param token the token between the braces
+     * @return boolean true if the token is a plain identifier, false otherwise.
+     */
+    private static boolean isIdentifier( String token )
+    {
+        if( token.length() == 0 || !Character.isJavaIdentifierStart( token.charAt( 0 ) ) )
+        {
+            return false;
+        }
+        for( int i = 1; i < token.length(); i++ )
+        {
+            char c = token.charAt( i );
+            if( !Character.isJavaIdentifierPart( c ) && c != '-' )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method isDirective determines whether the text following a '#' is a Velocity directive or comment.
+     *
+     * @param text the template text
+     * @param offset the offset directly after the '#'
+     * @return boolean true if Velocity would interpret the '#', false otherwise.
+     */
+    private static boolean isDirective( String text, int offset )
+    {
+        if( offset >= text.length() )
+        {
+            return false;
+        }
+        char c = text.charAt( offset );
+        if( c == '#' || c == '*' )
+        {
+            return true;
+        }
+        if( c == '{' )
+        {
+            offset++;
+        }
+        for( String directive : VELOCITY_DIRECTIVES )
+        {
+            if( text.startsWith( directive, offset ) )
+            {
+                int end = offset + directive.length();
+                if( end == text.length() || !Character.isLetterOrDigit( text.charAt( end ) ) )
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method getText returns the normalized text of this template, as it would be handed to Velocity.
+     *
+     * @return String the normalized text of this template.
+     */
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * Method requiresVelocity indicates whether this template uses Velocity features that cannot be
+     * rendered natively.
+     *
+     * @return boolean true if the template must be merged by Velocity, false otherwise.
+     */
+    public boolean requiresVelocity()
+    {
+        return requiresVelocity;
+    }
+
+    /**
+     * Method getSlotCount returns the number of distinct tokens in this template.
+     *
+     * @return int the number of distinct tokens in this template.
+     */
+    public int getSlotCount()
+    {
+        return slots.size();
+    }
+
+    /**
+     * Method getSlot returns the slot number assigned to the specified token.
+     *
+     * @param token the token name
+     * @return int the slot of the token or -1 if the template does not use the token.
+     */
+    public int getSlot( String token )
+    {
+        Integer slot = slots.get( token );
+        return null != slot ? slot : -1;
+    }
+
+    /**
+     * Method getSlotToken returns the token assigned to the specified slot.
+     *
+     * @param slot the slot number
+     * @return String the token name.
+     */
+    public String getSlotToken( int slot )
+    {
+        return slotTokens[slot];
+    }
+
+    /**
+     * Method getTokens returns the distinct tokens used in this template, in no particular order.
+     *
+     * @return the distinct tokens used in this template.
+     */
+    public Iterable<String> getTokens()
+    {
+        return slots.keySet();
+    }
+
+    /**
+     * Method render replaces all tokens in the template with the values from the specified context.
+     * Like Velocity, references without a value are left untouched unless they are quiet references.
+     *
+     * @param context the token values, indexed by slot
+     * @return String the rendered text.
+     */
+    public String render( RenderContext context )
+    {
+        return renderTo( context, new StringBuilder( getLength() ) ).toString();
+    }
+
+    /**
+     * Method renderTo appends the rendered template to the specified buffer.
+     *
+     * @param context the token values, indexed by slot
+     * @param sb the buffer to append to
+     * @return StringBuilder the specified buffer
+     */
+    public StringBuilder renderTo( RenderContext context, StringBuilder sb )
+    {
+        for( int i = 0; i < tokens.length; i++ )
+        {
+            sb.append( literals[i] );
+            String value = context.getValue( tokenSlots[i] );
+            if( null != value )
+            {
+                sb.append( value );
+            }
+            else if( !quiet[i] )
+            {
+                sb.append( "${" ).append( tokens[i] ).append( '}' );
+            }
+        }
+        return sb.append( literals[tokens.length] );
+    }
+
+    /**
+     * Method getLength returns an estimate of the length of the rendered template.
+     *
+     * @return int the estimated length of the rendered template.
+     */
+    int getLength()
+    {
+        return literalLength + tokens.length * 16;
+    }
+}
@@ -0,0 +1,111 @@
+package com.perniciouspenguins.ideaz.javadoc.templates;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class JavaDocCache is a bounded, least recently used cache of generated JavaDoc comments, keyed by the
+ * fingerprint of the signature the comment was generated for. Members with the same signature, like
+ * overloads or the getters and setters of similar classes, share a single rendered comment.
+ */
+public final class JavaDocCache
+{
+    private final Map<String, String> entries;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    /**
+     * Constructor JavaDocCache creates a new JavaDocCache instance.
+     *
+     * @param maximumSize the maximum number of comments kept in the cache
+     */
+    public JavaDocCache( final int maximumSize )
+    {
+        entries = new LinkedHashMap<String, String>( 16, 0.75f, true )
+        {
+            protected boolean removeEldestEntry( Map.Entry<String, String> eldest )
+            {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Method get returns the comment that was generated for the specified fingerprint.
+     *
+     * @param fingerprint the fingerprint of the signature
+     * @return String the cached comment or null if there is none.
+     */
+    public synchronized String get( String fingerprint )
+    {
+        String javaDoc = entries.get( fingerprint );
+        if( null != javaDoc )
+        {
+            hitCount++;
+        }
+        else
+        {
+            missCount++;
+        }
+        return javaDoc;
+    }
+
+    /**
+     * Method put stores the comment that was generated for the specified fingerprint.
+     *
+     * @param fingerprint the fingerprint of the signature
+     * @param javaDoc the generated comment
+     */
+    public synchronized void put( String fingerprint, String javaDoc )
+    {
+        entries.put( fingerprint, javaDoc );
+    }
+
+    /**
+     * Method clear removes all comments from the cache. The hit and miss counts are kept.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * Method size returns the number of comments in the cache.
+     *
+     * @return int the number of cached comments.
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Method getHitCount returns the number of lookups that were served from the cache.
+     *
+     * @return long the number of cache hits.
+     */
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * Method getMissCount returns the number of lookups that were not served from the cache.
+     *
+     * @return long the number of cache misses.
+     */
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Method toString returns the cache statistics.
+     *
+     * @return String the size, hit and miss counts of the cache.
+     */
+    public synchronized String toString()
+    {
+        return "JavaDocCache[size=" + entries.size() + ", hits=" + hitCount + ", misses=" + missCount + "]";
+    }
+}
@@ -1,6 +1,6 @@
 package com.perniciouspenguins.ideaz.javadoc.templates;
 
-import com.intellij.ide.fileTemplates.FileTemplateManager;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.DefaultLogger;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.psi.PsiClass;
@@ -13,7 +13,12 @@ import com.intellij.psi.PsiType;
 import com.intellij.psi.util.PropertyUtil;
 import com.perniciouspenguins.ideaz.javadoc.util.PsiUtils;
 
-import java.util.Properties;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Class JavaDocGenerator
@@ -24,22 +29,86 @@ import java.util.Properties;
 public class JavaDocGenerator
 {
     private static final Logger log = new DefaultLogger( "JavaDocManager" );
+    private static final int CACHE_SIZE = 1000;
+    private static final JavaDocCache cache = new JavaDocCache( CACHE_SIZE );
+    private static final String[] NONE = new String[0];
+    private static final Set<String> SHAPE_TOKENS = new HashSet<String>( Arrays.asList(
+            "NAME", "PACKAGE", "CLASS", "FIELD_NAME", "FIELD_COMMENT", "PARAM", "TYPE", "RETURN_TYPE",
+            "THROWABLE" ) );
 
     /**
      * Method generateJavaDoc provides functionality to lookup the template that is associated with
      * the type of PsiElement and merge the tokens in the template with the supplied values as found
      * in the properties map.
+     * <p/>
+     * The result only depends on the templates and the signature of the docCommentOwner, so it is cached
+     * by the fingerprint of the signature unless the templates use other tokens, like DATE or USER.
      *
      * @param docCommentOwner the PsiElement for which JavaDoc is generated
      * @return String the generated JavaDoc.
      */
     public static String generateJavaDoc( PsiDocCommentOwner docCommentOwner )
     {
+        // Read before loading the templates, so a concurrent template change never caches stale output
+        return generateJavaDoc( docCommentOwner, TemplateManager.getInstance().getGeneration() );
+    }
+
+    /**
+     * Method generateJavaDoc generates the JavaDoc of all specified elements in a single read action, so
+     * the results can be applied in a single write action afterwards.
+     *
+     * @param docCommentOwners the PsiElements for which JavaDoc is generated
+     * @return Map the generated JavaDoc per element, in the order of the specified collection.
+     */
+    public static Map<PsiDocCommentOwner, String> generateJavaDoc(
+            final Collection<? extends PsiDocCommentOwner> docCommentOwners )
+    {
+        final Map<PsiDocCommentOwner, String> result = new LinkedHashMap<PsiDocCommentOwner, String>();
+        final long generation = TemplateManager.getInstance().getGeneration();
+        ApplicationManager.getApplication().runReadAction( new Runnable()
+        {
+            /**
+             * Method run generates the JavaDoc of all elements.
+             */
+            public void run()
+            {
+                for( PsiDocCommentOwner docCommentOwner : docCommentOwners )
+                {
+                    result.put( docCommentOwner, generateJavaDoc( docCommentOwner, generation ) );
+                }
+            }
+        } );
+        return result;
+    }
+
+    /**
+     * Method generateJavaDoc generates the JavaDoc of the specified element with the templates of the
+     * specified generation.
+     *
+     * @param docCommentOwner the PsiElement for which JavaDoc is generated
+     * @param generation the template generation read before the templates were loaded
+     * @return String the generated JavaDoc.
+     */
+    private static String generateJavaDoc( PsiDocCommentOwner docCommentOwner, long generation )
+    {
+        TemplateManager templateManager = TemplateManager.getInstance();
         Template template = getPattern( docCommentOwner );
         if( null != template )
         {
             log.debug( "Using template '" + template.getName() + "'" );
-            return TemplateManager.getInstance().merge( template );
+            MemberShape shape = new MemberShape( template, docCommentOwner );
+            Set<String> tokens = getShapeTokens( template, shape );
+            String fingerprint = null != tokens ? shape.getFingerprint( generation, tokens ) : null;
+            String javaDoc = null != fingerprint ? cache.get( fingerprint ) : null;
+            if( null == javaDoc )
+            {
+                javaDoc = templateManager.merge( extendTemplateForType( template, shape ) );
+                if( null != fingerprint && null != javaDoc )
+                {
+                    cache.put( fingerprint, javaDoc );
+                }
+            }
+            return javaDoc;
         }
         else
         {
@@ -48,6 +117,76 @@ public class JavaDocGenerator
         return null;
     }
 
+    /**
+     * Method getCache returns the cache of generated comments, which reports its hit and miss counts.
+     *
+     * @return JavaDocCache the cache of generated comments.
+     */
+    public static JavaDocCache getCache()
+    {
+        return cache;
+    }
+
+    /**
+     * Method getShapeTokens collects the tokens that the templates for the specified signature use, which
+     * are the only parts of the signature the generated comment depends on. Templates that use other
+     * tokens or Velocity features are never cached.
+     *
+     * @param template the template of the docCommentOwner
+     * @param shape the signature of the docCommentOwner
+     * @return Set the tokens used by the templates or null if the generated comment cannot be cached.
+     */
+    private static Set<String> getShapeTokens( Template template, MemberShape shape )
+    {
+        TemplateManager templateManager = TemplateManager.getInstance();
+        Set<String> tokens = new HashSet<String>();
+        if( !addShapeTokens( template, tokens ) )
+        {
+            return null;
+        }
+        if( shape.parameterNames.length > 0 &&
+            !addShapeTokens( templateManager.loadTemplate( TemplateManager.TEMPLATE_METHOD_PARAM ), tokens ) )
+        {
+            return null;
+        }
+        if( null != shape.returnType &&
+            !addShapeTokens( templateManager.loadTemplate( TemplateManager.TEMPLATE_METHOD_RETURN_TYPE ), tokens ) )
+        {
+            return null;
+        }
+        if( shape.throwables.length > 0 &&
+            !addShapeTokens( templateManager.loadTemplate( TemplateManager.TEMPLATE_METHOD_THROWS ), tokens ) )
+        {
+            return null;
+        }
+        return tokens;
+    }
+
+    /**
+     * Method addShapeTokens adds the tokens of the specified template to the tokens collected so far, as
+     * long as they are all part of the signature of a member.
+     *
+     * @param template the template to check
+     * @param tokens the tokens collected so far
+     * @return boolean true if all tokens are part of the signature, false otherwise.
+     */
+    private static boolean addShapeTokens( Template template, Set<String> tokens )
+    {
+        if( null == template || template.getCompiledTemplate().requiresVelocity() )
+        {
+            return false;
+        }
+        for( String token : template.getCompiledTemplate().getTokens() )
+        {
+            if( !SHAPE_TOKENS.contains( token ) )
+            {
+                return false;
+            }
+            tokens.add( token );
+        }
+        return true;
+    }
+
     /**
      * Method getPattern determines which template should be loaded based
      * on the specified type of the docCommentOwner parameter.
@@ -113,117 +252,229 @@ public class JavaDocGenerator
                     template = templateManager.loadTemplate( TemplateManager.TEMPLATE_PLAIN_METHOD );
                 }
             }
-            if( null != template )
-            {
-                extendTemplateForType( template, docCommentOwner );
-            }
         }
         return template;
     }
 
     /**
-     * Method extendTemplateForType builds a collection of tokens and token values based on the supplied
-     * PsiDocCommentOwner type.
+     * Method extendTemplateForType builds a render request for the template, holding the token values and
+     * the parameter, return type and throws clauses of the supplied signature. The template itself is not
+     * modified.
      *
      * @param template the template that will be extended based on the type of the docCommentOwner.
-     * @param docCommentOwner the PsiElement capable of having JavaDoc @return Map a collection of tokens and token values.
+     * @param shape the signature of the PsiElement capable of having JavaDoc
+     * @return RenderRequest the token values and additional clauses for the template.
      */
-    private static void extendTemplateForType( Template template, PsiDocCommentOwner docCommentOwner )
+    private static RenderRequest extendTemplateForType( Template template, MemberShape shape )
     {
         TemplateManager templateManager = TemplateManager.getInstance();
-        Properties properties = FileTemplateManager.getInstance().getDefaultProperties();
-        properties.put( "NAME", docCommentOwner.getName() );
-
-        if( docCommentOwner instanceof PsiClass )
-        {
-            properties.put( "PACKAGE", PsiUtils.getPackage( (PsiClass) docCommentOwner ) );
-        }
+        RenderRequest request = template.createRenderRequest();
+        RenderContext context = request.getContext().useDefaultProperties();
+        context.set( "NAME", shape.name );
+        context.set( "PACKAGE", shape.packageName );
 
         String text = template.getText();
-        StringBuffer sb = new StringBuffer( text.substring( 0, text.lastIndexOf( "*/" ) ) );
-
-        if( docCommentOwner instanceof PsiMethod )
+        if( shape.method )
         {
-            PsiMethod method = (PsiMethod) docCommentOwner;
-            if( !PsiUtils.isAnonymous( method ) && null != method.getContainingClass() )
+            context.set( "CLASS", shape.className );
+            if( shape.getter )
             {
-                properties.put( "CLASS", method.getContainingClass().getName() );
+                context.set( "FIELD_NAME", shape.fieldName );
+                context.set( "FIELD_COMMENT", shape.fieldComment );
             }
-            if( PropertyUtil.isSimplePropertyGetter( method ) )
+            if( shape.setter && text.indexOf( "@param" ) != -1 )
             {
-                String propertyName = PropertyUtil.getPropertyName( method );
-                properties.put( "FIELD_NAME", propertyName );
-                properties.put( "FIELD_COMMENT", PsiUtils.getFieldDocToken( method, propertyName ) );
+                context.set( "PARAM", shape.parameterNames[0] );
+                context.set( "FIELD_NAME", shape.fieldName );
+                context.set( "FIELD_COMMENT", shape.fieldComment );
             }
-            if( PropertyUtil.isSimplePropertySetter( method ) && text.indexOf( "@param" ) != -1 )
+
+            boolean hasReturnType = null != shape.returnType;
+            if( hasReturnType && text.indexOf( "@return" ) != -1 )
             {
-                properties.put( "PARAM", method.getParameterList().getParameters()[0].getName() );
-                String propertyName = PropertyUtil.getPropertyName( method );
-                properties.put( "FIELD_NAME", propertyName );
-                properties.put( "FIELD_COMMENT", PsiUtils.getFieldDocToken( method, propertyName ) );
+                context.set( "RETURN_TYPE", shape.returnType );
             }
 
-            PsiParameter[] parameters = method.getParameterList().getParameters();
-            if( parameters.length > 0 )
+            if( shape.parameterNames.length > 0 )
             {
-                sb.append( "*\n" );
+                request.addSeparator();
 
                 Template paramTemplate = templateManager.loadTemplate( TemplateManager.TEMPLATE_METHOD_PARAM );
 
-                Properties props = new Properties();
-
-                for( PsiParameter parameter : parameters )
+                for( int i = 0; i < shape.parameterNames.length; i++ )
                 {
-                    props.put( "PARAM", parameter.getName() );
-                    props.put( "TYPE", parameter.getType().getPresentableText() );
-                    paramTemplate.setProperties( props );
-
                     if( text.indexOf( "@param" ) == -1 )
                     {
-                        sb.append( " * " ).append( templateManager.merge( paramTemplate ) ).append( " \n" );
+                        RenderContext props = paramTemplate.createRenderContext()
+                                .inheritFrom( context )
+                                .set( "PARAM", shape.parameterNames[i] )
+                                .set( "TYPE", shape.parameterTypes[i] );
+                        request.addLine( templateManager.merge( paramTemplate, props ) );
                     }
                 }
             }
 
-            PsiType methodReturnType = method.getReturnType();
-            //Why PsiType.VOID doesn't work is beyond me...
-            if( methodReturnType != null && !methodReturnType.getPresentableText().equals( "void" ) )
+            if( hasReturnType && text.indexOf( "@return" ) == -1 )
             {
-                if( text.indexOf( "@return" ) == -1 )
-                {
-                    Template returnTypeTemplate =
-                            templateManager.loadTemplate( TemplateManager.TEMPLATE_METHOD_RETURN_TYPE );
+                Template returnTypeTemplate =
+                        templateManager.loadTemplate( TemplateManager.TEMPLATE_METHOD_RETURN_TYPE );
 
-                    Properties props = new Properties();
-                    props.put( "RETURN_TYPE", methodReturnType.getPresentableText() );
-                    returnTypeTemplate.setProperties( props );
-                    sb.append( " * " ).append( templateManager.merge( returnTypeTemplate ) ).append( " \n" );
-                }
-                else
+                RenderContext props = returnTypeTemplate.createRenderContext()
+                        .inheritFrom( context )
+                        .set( "RETURN_TYPE", shape.returnType );
+                request.addLine( templateManager.merge( returnTypeTemplate, props ) );
+            }
+
+            if( shape.throwables.length > 0 )
+            {
+                Template throwsTemplate = templateManager.loadTemplate( TemplateManager.TEMPLATE_METHOD_THROWS );
+
+                for( String throwable : shape.throwables )
                 {
-                    properties.put( "RETURN_TYPE", methodReturnType.getPresentableText() );
+                    RenderContext props = throwsTemplate.createRenderContext()
+                            .inheritFrom( context )
+                            .set( "THROWABLE", throwable );
+                    request.addLine( templateManager.merge( throwsTemplate, props ) );
                 }
             }
+        }
+        return request;
+    }
+
+    /**
+     * Class MemberShape holds everything of a PsiDocCommentOwner that the generated comment depends on:
+     * the kind of member, its name and the names and types in its signature.
+     */
+    private static final class MemberShape
+    {
+        private final String type;
+        private final String name;
+        private String packageName = null;
+        private boolean method = false;
+        private String className = null;
+        private boolean getter = false;
+        private boolean setter = false;
+        private String fieldName = null;
+        private String fieldComment = null;
+        private String returnType = null;
+        private String[] parameterNames = NONE;
+        private String[] parameterTypes = NONE;
+        private String[] throwables = NONE;
 
-            PsiClassType[] referencedTypes = method.getThrowsList().getReferencedTypes();
-            if( referencedTypes.length > 0 )
+        /**
+         * Constructor MemberShape collects the signature of the specified PsiDocCommentOwner.
+         *
+         * @param template the template of the docCommentOwner
+         * @param docCommentOwner the PsiElement capable of having JavaDoc
+         */
+        private MemberShape( Template template, PsiDocCommentOwner docCommentOwner )
+        {
+            type = template.getType();
+            name = docCommentOwner.getName();
+
+            if( docCommentOwner instanceof PsiClass )
             {
-                Template throwsTemplate = templateManager.loadTemplate( TemplateManager.TEMPLATE_METHOD_THROWS );
+                packageName = PsiUtils.getPackage( (PsiClass) docCommentOwner );
+            }
+
+            if( docCommentOwner instanceof PsiMethod )
+            {
+                PsiMethod psiMethod = (PsiMethod) docCommentOwner;
+                method = true;
+                if( !PsiUtils.isAnonymous( psiMethod ) && null != psiMethod.getContainingClass() )
+                {
+                    className = psiMethod.getContainingClass().getName();
+                }
+                getter = PropertyUtil.isSimplePropertyGetter( psiMethod );
+                setter = PropertyUtil.isSimplePropertySetter( psiMethod );
+                if( getter || setter )
+                {
+                    fieldName = PropertyUtil.getPropertyName( psiMethod );
+                    fieldComment = PsiUtils.getFieldDocToken( psiMethod, fieldName );
+                }
 
-                for( PsiClassType referencedType : referencedTypes )
+                PsiType methodReturnType = psiMethod.getReturnType();
+                //Why PsiType.VOID doesn't work is beyond me...
+                if( methodReturnType != null && !methodReturnType.getPresentableText().equals( "void" ) )
                 {
+                    returnType = methodReturnType.getPresentableText();
+                }
 
-                    Properties props = new Properties();
-                    props.put( "THROWABLE", referencedType.getClassName() );
-                    throwsTemplate.setProperties( props );
+                PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
+                if( parameters.length > 0 )
+                {
+                    parameterNames = new String[parameters.length];
+                    parameterTypes = new String[parameters.length];
+                    for( int i = 0; i < parameters.length; i++ )
+                    {
+                        parameterNames[i] = parameters[i].getName();
+                        parameterTypes[i] = parameters[i].getType().getPresentableText();
+                    }
+                }
 
-                    sb.append( " * " ).append( templateManager.merge( throwsTemplate ) ).append( " \n" );
+                PsiClassType[] referencedTypes = psiMethod.getThrowsList().getReferencedTypes();
+                if( referencedTypes.length > 0 )
+                {
+                    throwables = new String[referencedTypes.length];
+                    for( int i = 0; i < referencedTypes.length; i++ )
+                    {
+                        throwables[i] = referencedTypes[i].getClassName();
+                    }
                 }
             }
         }
-        sb.append( " */" );
 
-        template.setText( sb.toString() );
-        template.setProperties( properties );
+        /**
+         * Method getFingerprint returns a compact key that is equal for two signatures if and only if they
+         * produce the same comment with the same templates. The package and class are only part of the key
+         * when the templates use them, so the same member of different classes shares a single comment.
+         *
+         * @param generation the template generation the comment is rendered with
+         * @param tokens the tokens used by the templates
+         * @return String the fingerprint of this signature.
+         */
+        private String getFingerprint( long generation, Set<String> tokens )
+        {
+            StringBuilder sb = new StringBuilder( 64 );
+            sb.append( generation ).append( '\u0000' ).append( type );
+            append( sb, name );
+            append( sb, tokens.contains( "PACKAGE" ) ? packageName : null );
+            append( sb, tokens.contains( "CLASS" ) ? className : null );
+            sb.append( '\u0000' ).append( method ? 'm' : '-' ).append( getter ? 'g' : '-' ).append( setter ? 's' : '-' );
+            append( sb, fieldName );
+            append( sb, fieldComment );
+            append( sb, returnType );
+            sb.append( '\u0000' ).append( parameterNames.length );
+            for( int i = 0; i < parameterNames.length; i++ )
+            {
+                append( sb, parameterNames[i] );
+                append( sb, parameterTypes[i] );
+            }
+            sb.append( '\u0000' ).append( throwables.length );
+            for( String throwable : throwables )
+            {
+                append( sb, throwable );
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Method append adds a separated, possibly null value to the fingerprint.
+         *
+         * @param sb the fingerprint
+         * @param value the value to add
+         */
+        private static void append( StringBuilder sb, String value )
+        {
+            sb.append( '\u0000' );
+            if( null == value )
+            {
+                sb.append( '\u0001' );
+            }
+            else
+            {
+                sb.append( value );
+            }
+        }
     }
 }
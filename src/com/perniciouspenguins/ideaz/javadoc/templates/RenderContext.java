@@ -0,0 +1,215 @@
+package com.perniciouspenguins.ideaz.javadoc.templates;
+
+import com.intellij.ide.fileTemplates.FileTemplateManager;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Class RenderContext holds the token values for a single render of a {@link CompiledTemplate}.
+ * Values are stored in an array indexed by the slots the template assigned to its tokens, tokens the
+ * template does not use are ignored.
+ */
+public final class RenderContext
+{
+    private final CompiledTemplate compiledTemplate;
+    private final String[] values;
+    private Properties velocityProperties = null;
+    private boolean useDefaultProperties = false;
+    private Properties defaultProperties = null;
+    private RenderContext parent = null;
+
+    /**
+     * Constructor RenderContext creates a new, empty RenderContext for the specified template.
+     *
+     * @param compiledTemplate the template this context provides the values for
+     */
+    public RenderContext( CompiledTemplate compiledTemplate )
+    {
+        this.compiledTemplate = compiledTemplate;
+        this.values = new String[compiledTemplate.getSlotCount()];
+    }
+
+    /**
+     * Method set assigns a value to the specified token. The value is dropped if the template does not
+     * use the token.
+     *
+     * @param token the token name
+     * @param value the value of the token, null leaves the token unresolved
+     * @return RenderContext this context
+     */
+    public RenderContext set( String token, String value )
+    {
+        int slot = compiledTemplate.getSlot( token );
+        if( slot != -1 )
+        {
+            values[slot] = value;
+        }
+        else if( compiledTemplate.requiresVelocity() && null != value )
+        {
+            // Velocity templates are not fully tokenized, keep the value for the merge
+            if( null == velocityProperties )
+            {
+                velocityProperties = new Properties();
+            }
+            velocityProperties.put( token, value );
+        }
+        return this;
+    }
+
+    /**
+     * Method setAll assigns the values of all entries of the specified properties.
+     *
+     * @param properties the token values
+     * @return RenderContext this context
+     */
+    public RenderContext setAll( Properties properties )
+    {
+        if( null != properties )
+        {
+            for( Map.Entry<Object, Object> entry : properties.entrySet() )
+            {
+                set( String.valueOf( entry.getKey() ), null != entry.getValue() ? entry.getValue().toString() : null );
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Method useDefaultProperties makes tokens that did not receive a value fall back to the default
+     * file template properties, like USER and DATE.
+     *
+     * @return RenderContext this context
+     */
+    public RenderContext useDefaultProperties()
+    {
+        useDefaultProperties = true;
+        return this;
+    }
+
+    /**
+     * Method inheritFrom makes tokens that did not receive a value fall back to the values of the
+     * specified context, and to its default properties if it uses them. This is used for the clauses
+     * that are added to a comment template, which see the same values as the comment itself.
+     *
+     * @param parent the context to inherit values from
+     * @return RenderContext this context
+     */
+    public RenderContext inheritFrom( RenderContext parent )
+    {
+        this.parent = parent;
+        return this;
+    }
+
+    /**
+     * Method lookup returns the value of the specified token from this context or the context it
+     * inherits from, without resolving default properties.
+     *
+     * @param token the token name
+     * @return String the value or null if the token is unresolved.
+     */
+    private String lookup( String token )
+    {
+        int slot = compiledTemplate.getSlot( token );
+        String value = slot != -1 ? values[slot] : null;
+        if( null == value && null != velocityProperties )
+        {
+            value = velocityProperties.getProperty( token );
+        }
+        if( null == value && null != parent )
+        {
+            value = parent.lookup( token );
+        }
+        return value;
+    }
+
+    /**
+     * Method getDefaultProperties returns the default file template properties if this context or the
+     * context it inherits from uses them. The defaults are requested at most once per context chain.
+     *
+     * @return Properties the default properties or null if they are not used.
+     */
+    private Properties getDefaultProperties()
+    {
+        if( null != parent )
+        {
+            Properties defaults = parent.getDefaultProperties();
+            if( null != defaults || !useDefaultProperties )
+            {
+                return defaults;
+            }
+        }
+        if( useDefaultProperties && null == defaultProperties )
+        {
+            defaultProperties = FileTemplateManager.getInstance().getDefaultProperties();
+        }
+        return defaultProperties;
+    }
+
+    /**
+     * Method getValue returns the value of the specified slot.
+     *
+     * @param slot the slot number
+     * @return String the value or null if the slot is unresolved.
+     */
+    String getValue( int slot )
+    {
+        return values[slot];
+    }
+
+    /**
+     * Method resolveDefaults fills unresolved slots from the inherited context and the default file
+     * template properties. The defaults are only requested when a slot is still unresolved.
+     */
+    void resolveDefaults()
+    {
+        if( useDefaultProperties || null != parent )
+        {
+            for( int slot = 0; slot < values.length; slot++ )
+            {
+                if( null == values[slot] )
+                {
+                    String token = compiledTemplate.getSlotToken( slot );
+                    String value = null != parent ? parent.lookup( token ) : null;
+                    if( null == value )
+                    {
+                        Properties defaults = getDefaultProperties();
+                        value = null != defaults ? defaults.getProperty( token ) : null;
+                    }
+                    values[slot] = value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Method toProperties converts this context to the properties needed for a Velocity merge.
+     *
+     * @return Properties all token values of this context.
+     */
+    Properties toProperties()
+    {
+        Properties properties = new Properties();
+        Properties defaults = getDefaultProperties();
+        if( null != defaults )
+        {
+            properties.putAll( defaults );
+        }
+        if( null != parent )
+        {
+            properties.putAll( parent.toProperties() );
+        }
+        if( null != velocityProperties )
+        {
+            properties.putAll( velocityProperties );
+        }
+        for( int slot = 0; slot < values.length; slot++ )
+        {
+            if( null != values[slot] )
+            {
+                properties.put( compiledTemplate.getSlotToken( slot ), values[slot] );
+            }
+        }
+        return properties;
+    }
+}
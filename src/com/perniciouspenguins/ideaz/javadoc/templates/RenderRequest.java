@@ -0,0 +1,97 @@
+package com.perniciouspenguins.ideaz.javadoc.templates;
+
+/**
+ * Class RenderRequest holds the state of a single render of a JavaDoc comment template: the token
+ * values and the lines, like parameter and throws clauses, that are added before the comment is
+ * closed. The {@link Template} itself is never modified, so it can be shared between threads.
+ */
+public final class RenderRequest
+{
+    private final Template template;
+    private final RenderContext context;
+    private StringBuilder lines = null;
+
+    /**
+     * Constructor RenderRequest creates a new RenderRequest instance.
+     *
+     * @param template the template to render
+     */
+    RenderRequest( Template template )
+    {
+        this.template = template;
+        this.context = new RenderContext( template.getCompiledBody() );
+    }
+
+    /**
+     * Method getTemplate returns the template that is rendered.
+     *
+     * @return Template the template that is rendered.
+     */
+    public Template getTemplate()
+    {
+        return template;
+    }
+
+    /**
+     * Method getContext returns the token values for the template.
+     *
+     * @return RenderContext the token values for the template.
+     */
+    public RenderContext getContext()
+    {
+        return context;
+    }
+
+    /**
+     * Method addSeparator adds an empty comment line, separating the template text from the added
+     * lines.
+     *
+     * @return RenderRequest this request
+     */
+    public RenderRequest addSeparator()
+    {
+        getLines().append( "*\n" );
+        return this;
+    }
+
+    /**
+     * Method addLine adds a comment line with the specified, already rendered text.
+     *
+     * @param line the text of the line
+     * @return RenderRequest this request
+     */
+    public RenderRequest addLine( String line )
+    {
+        getLines().append( " * " ).append( line ).append( " \n" );
+        return this;
+    }
+
+    /**
+     * Method getLines returns the buffer holding the added lines.
+     *
+     * @return StringBuilder the added lines.
+     */
+    private StringBuilder getLines()
+    {
+        if( null == lines )
+        {
+            lines = new StringBuilder();
+        }
+        return lines;
+    }
+
+    /**
+     * Method appendLines appends the added lines and the closing comment marker to the specified buffer.
+     *
+     * @param sb the buffer to append to
+     * @return StringBuilder the specified buffer
+     */
+    StringBuilder appendLines( StringBuilder sb )
+    {
+        if( null != lines )
+        {
+            sb.append( lines );
+        }
+        return sb.append( " */" );
+    }
+}
@@ -1,29 +1,81 @@
 package com.perniciouspenguins.ideaz.javadoc.templates;
 
-import java.util.Properties;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
- * Class Template ...
+ * Class Template is the immutable definition of a JavaDoc template. A single instance can be shared by
+ * any number of threads, the state of an individual render is kept in a {@link RenderContext} or
+ * {@link RenderRequest}.
  *
  * @author Raymond P. Brandon
  * Created on Mar 3, 2007
  */
-public class Template {
-    private String name;
-    private String type;
-    private String text = null;
-    private String documentation = null;
-    private Properties properties = null;
+public final class Template {
+    private static final String COMMENT_END = "*/";
+
+    private final String name;
+    private final String type;
+    private final String text;
+    private final TemplateDocumentation documentation;
+    private final Set<String> tokens;
+    private final CompiledTemplate compiledTemplate;
+    private final CompiledTemplate compiledBody;
 
     /**
-     * Constructor Template creates a new Template instance.
+     * Constructor Template creates a new Template instance whose documentation is loaded on first use.
      *
      * @param type of type String
      * @param name of type String
+     * @param text the text of the template
+     * @param documentation the holder of the HTML documentation describing the template
      */
-    public Template(String type, String name) {
+    Template(String type, String name, String text, TemplateDocumentation documentation) {
         this.type = type;
         this.name = name;
+        this.text = null != text ? text : "";
+        this.documentation = documentation;
+        this.compiledTemplate = CompiledTemplate.compile(this.text);
+        this.tokens = Collections.unmodifiableSet(getTokens(compiledTemplate));
+
+        int commentEnd = this.text.lastIndexOf(COMMENT_END);
+        this.compiledBody = commentEnd != -1
+                            ? CompiledTemplate.compile(this.text.substring(0, commentEnd))
+                            : compiledTemplate;
+    }
+
+    /**
+     * Method getTokens returns the tokens of the specified compiled text, as parsed by the renderer.
+     *
+     * @param compiledTemplate the compiled template text
+     * @return Set the tokens used in the text, in order of appearance.
+     */
+    private static Set<String> getTokens(CompiledTemplate compiledTemplate) {
+        Set<String> tokens = new LinkedHashSet<String>();
+        for (int slot = 0; slot < compiledTemplate.getSlotCount(); slot++) {
+            tokens.add(compiledTemplate.getSlotToken(slot));
+        }
+        return tokens;
+    }
+
+    /**
+     * Method withText creates a copy of this Template object with a different text.
+     *
+     * @param text the text of the new Template object.
+     * @return Template a template of the same type with the specified text.
+     */
+    public Template withText(String text) {
+        return new Template(type, name, text, documentation);
+    }
+
+    /**
+     * Method getType returns the type of this Template object.
+     *
+     * @return String the type of this Template object.
+     */
+    public String getType() {
+        return type;
     }
 
     /**
@@ -45,49 +97,60 @@ public class Template {
     }
 
     /**
-     * Method setText sets the text of this Template object.
+     * Method getDocumentation returns the HTML documentation describing this text. The documentation
+     * is loaded on the first call.
      *
-     * @param text the text of this Template object.
+     * @return String the HTML documentation describing this text.
+     */
+    public String getDocumentation() {
+        return documentation.get();
+    }
+
+    /**
+     * Method getTokens returns the tokens used in the text of this Template object.
      *
+     * @return Set the tokens used in this text, in order of appearance.
      */
-    public void setText(String text) {
-        this.text = text;
+    public Set<String> getTokens() {
+        return tokens;
     }
 
     /**
-     * Method getDocumentation returns the HTML documentation describing this text.
+     * Method getCompiledTemplate returns the precompiled form of the text of this Template object.
      *
-     * @return String the HTML documentation describing this text.
+     * @return CompiledTemplate the precompiled text of this Template object.
      */
-    public String getDocumentation() {
-        return documentation;
+    public CompiledTemplate getCompiledTemplate() {
+        return compiledTemplate;
     }
 
     /**
-     * Method setDocumentation sets the HTML documentation describing this text.
+     * Method getCompiledBody returns the precompiled text of this Template object up to the closing
+     * comment marker, which is the part that is extended by a {@link RenderRequest}.
      *
-     * @param documentation the HTML documentation describing this text.
+     * @return CompiledTemplate the precompiled body of this Template object.
      */
-    public void setDocumentation(String documentation) {
-        this.documentation = documentation;
+    CompiledTemplate getCompiledBody() {
+        return compiledBody;
     }
 
     /**
-     * Method getProperties returns the available properties for this text.
+     * Method createRenderContext creates an empty render context for the text of this Template object.
      *
-     * @return Properties the available properties for this text.
+     * @return RenderContext a context to collect the token values in.
      */
-    public Properties getProperties() {
-        return properties;
+    public RenderContext createRenderContext() {
+        return new RenderContext(compiledTemplate);
     }
 
     /**
-     * Method setProperties allows the available properties for this text to be set.
+     * Method createRenderRequest creates a render request that allows lines to be added to the text of
+     * this Template object before the comment is closed.
      *
-     * @param properties the available properties for this text.
+     * @return RenderRequest a request to collect the token values and additional lines in.
      */
-    public void setProperties(Properties properties) {
-        this.properties = properties;
+    public RenderRequest createRenderRequest() {
+        return new RenderRequest(this);
     }
 
     /**
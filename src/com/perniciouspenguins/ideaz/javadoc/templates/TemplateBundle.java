@@ -0,0 +1,443 @@
+package com.perniciouspenguins.ideaz.javadoc.templates;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Class TemplateBundle holds the text and documentation of all templates in a single UTF-8 encoded file,
+ * so the templates can be loaded with one read instead of a read per template file.
+ * <p/>
+ * The file starts with a header (magic number, format version and number of templates) followed by an
+ * offset table with, per template, its name and the offset and length of its text and documentation.
+ * The texts follow the table, the documentation is stored at the end of the file. Reading a bundle only
+ * reads the table and the texts, the documentation is read from the file when it is first needed.
+ */
+final class TemplateBundle
+{
+    static final String FILE_NAME = "templates.bundle";
+
+    private static final int MAGIC = 0x4A445342;
+    private static final int VERSION = 1;
+    private static final String ENCODING = "UTF-8";
+    private static final int INITIAL_READ_SIZE = 16 * 1024;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+    /**
+     * The text and documentation of a single template.
+     */
+    private static final class Entry
+    {
+        private final String text;
+        private final TemplateDocumentation documentation;
+
+        /**
+         * Constructor Entry creates a new Entry instance.
+         *
+         * @param text the template text
+         * @param documentation the HTML documentation of the template
+         */
+        private Entry( String text, TemplateDocumentation documentation )
+        {
+            this.text = null != text ? text : "";
+            this.documentation = documentation;
+        }
+    }
+
+    /**
+     * Method contains determines whether this bundle holds the specified template.
+     *
+     * @param name the template name
+     * @return boolean true if the template is part of this bundle, false otherwise.
+     */
+    boolean contains( String name )
+    {
+        return entries.containsKey( name );
+    }
+
+    /**
+     * Method getNames returns the names of the templates in this bundle.
+     *
+     * @return Set the template names.
+     */
+    Set<String> getNames()
+    {
+        return Collections.unmodifiableSet( entries.keySet() );
+    }
+
+    /**
+     * Method getText returns the text of the specified template.
+     *
+     * @param name the template name
+     * @return String the template text or null if the template is not part of this bundle.
+     */
+    String getText( String name )
+    {
+        Entry entry = entries.get( name );
+        return null != entry ? entry.text : null;
+    }
+
+    /**
+     * Method getDocumentation returns the HTML documentation of the specified template.
+     *
+     * @param name the template name
+     * @return TemplateDocumentation the documentation or null if the template is not part of this bundle.
+     */
+    TemplateDocumentation getDocumentation( String name )
+    {
+        Entry entry = entries.get( name );
+        return null != entry ? entry.documentation : null;
+    }
+
+    /**
+     * Method put adds or replaces the specified template.
+     *
+     * @param name the template name
+     * @param text the template text
+     * @param documentation the HTML documentation of the template
+     */
+    void put( String name, String text, TemplateDocumentation documentation )
+    {
+        entries.put( name, new Entry( text, documentation ) );
+    }
+
+    /**
+     * Method read loads the table and the texts of a bundle from the specified file, normally with a single
+     * read. The documentation is read when it is first requested.
+     *
+     * @param file the bundle file
+     * @return TemplateBundle the bundle read from the file.
+     * @throws IOException when the file cannot be read or is not a valid bundle.
+     */
+    static TemplateBundle read( File file ) throws IOException
+    {
+        long timestamp = file.lastModified();
+        RandomAccessFile randomAccessFile = new RandomAccessFile( file, "r" );
+        try
+        {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            if( size > Integer.MAX_VALUE )
+            {
+                throw new IOException( "Template bundle " + file + " is too large" );
+            }
+            ByteBuffer buffer = read( channel, (int) Math.min( size, INITIAL_READ_SIZE ) );
+            TableEntry[] table;
+            try
+            {
+                table = readTable( buffer, file );
+            }
+            catch( BufferUnderflowException e )
+            {
+                // The table does not fit in the initial read
+                buffer = read( channel, (int) size );
+                table = readTable( buffer, file );
+            }
+
+            int textsEnd = 0;
+            for( TableEntry entry : table )
+            {
+                textsEnd = Math.max( textsEnd, entry.textOffset + entry.textLength );
+            }
+            if( textsEnd > buffer.limit() && textsEnd <= size )
+            {
+                buffer = read( channel, textsEnd );
+            }
+
+            TemplateBundle bundle = new TemplateBundle();
+            for( TableEntry entry : table )
+            {
+                bundle.put( entry.name,
+                            decodeString( buffer, entry.textOffset, entry.textLength, file ),
+                            new FileDocumentation( file, timestamp, entry.documentationOffset,
+                                                   entry.documentationLength ) );
+            }
+            return bundle;
+        }
+        catch( BufferUnderflowException e )
+        {
+            throw new IOException( "Template bundle " + file + " is truncated" );
+        }
+        finally
+        {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Method read reads the specified number of bytes from the start of the channel.
+     *
+     * @param channel the channel to read from
+     * @param length the number of bytes to read
+     * @return ByteBuffer the bytes that were read, ready to be decoded.
+     * @throws IOException when reading fails.
+     */
+    private static ByteBuffer read( FileChannel channel, int length ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( length );
+        while( buffer.hasRemaining() && channel.read( buffer, buffer.position() ) != -1 )
+        {
+            // A local file is normally read at once, keep reading for channels that return less
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * A single row of the offset table of a bundle.
+     */
+    private static final class TableEntry
+    {
+        private String name;
+        private int textOffset;
+        private int textLength;
+        private int documentationOffset;
+        private int documentationLength;
+    }
+
+    /**
+     * Method readTable parses the header and the offset table of the bundle in the specified buffer.
+     *
+     * @param buffer the start of the bundle file
+     * @param file the bundle file, used for error messages
+     * @return TableEntry[] the rows of the offset table.
+     * @throws IOException when the buffer does not start with a valid bundle header.
+     */
+    private static TableEntry[] readTable( ByteBuffer buffer, File file ) throws IOException
+    {
+        buffer.rewind();
+        if( buffer.getInt() != MAGIC )
+        {
+            throw new IOException( file + " is not a template bundle" );
+        }
+        int version = buffer.getInt();
+        if( version != VERSION )
+        {
+            throw new IOException( "Unsupported template bundle version " + version + " in " + file );
+        }
+        int count = buffer.getInt();
+        if( count < 0 )
+        {
+            throw new IOException( "Template bundle " + file + " is corrupt" );
+        }
+        TableEntry[] table = new TableEntry[count];
+        for( int i = 0; i < count; i++ )
+        {
+            byte[] nameBytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get( nameBytes );
+            TableEntry entry = new TableEntry();
+            entry.name = new String( nameBytes, ENCODING );
+            entry.textOffset = buffer.getInt();
+            entry.textLength = buffer.getInt();
+            entry.documentationOffset = buffer.getInt();
+            entry.documentationLength = buffer.getInt();
+            table[i] = entry;
+        }
+        return table;
+    }
+
+    /**
+     * Method decodeString decodes the UTF-8 string at the specified absolute position of the buffer.
+     *
+     * @param buffer the content of the bundle file
+     * @param offset the offset of the string
+     * @param length the length of the string in bytes
+     * @param file the bundle file, used for error messages
+     * @return String the decoded string.
+     * @throws IOException when the string is not inside the buffer.
+     */
+    private static String decodeString( ByteBuffer buffer, int offset, int length, File file )
+            throws IOException
+    {
+        if( length < 0 || offset < 0 || offset > buffer.limit() - length )
+        {
+            throw new IOException( "Template bundle " + file + " is corrupt" );
+        }
+        return new String( buffer.array(), buffer.arrayOffset() + offset, length, ENCODING );
+    }
+
+    /**
+     * Documentation that is read from the bundle file on first use. When the file was replaced since the
+     * bundle was read, the documentation is reported as not available.
+     */
+    private static final class FileDocumentation extends TemplateDocumentation
+    {
+        private final File file;
+        private final long timestamp;
+        private final int offset;
+        private final int length;
+
+        /**
+         * Constructor FileDocumentation creates a new FileDocumentation instance.
+         *
+         * @param file the bundle file
+         * @param timestamp the modification time of the file when the bundle was read
+         * @param offset the offset of the documentation in the file
+         * @param length the length of the documentation in bytes, -1 if there is none
+         */
+        private FileDocumentation( File file, long timestamp, int offset, int length )
+        {
+            this.file = file;
+            this.timestamp = timestamp;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * @see TemplateDocumentation#load()
+         */
+        protected String load()
+        {
+            if( length < 0 || offset < 0 || file.lastModified() != timestamp )
+            {
+                return null;
+            }
+            try
+            {
+                RandomAccessFile randomAccessFile = new RandomAccessFile( file, "r" );
+                try
+                {
+                    FileChannel channel = randomAccessFile.getChannel();
+                    ByteBuffer buffer = ByteBuffer.allocate( length );
+                    while( buffer.hasRemaining() && channel.read( buffer, offset + buffer.position() ) != -1 )
+                    {
+                        // Keep reading for channels that return less
+                    }
+                    return buffer.hasRemaining() ? null : new String( buffer.array(), 0, length, ENCODING );
+                }
+                finally
+                {
+                    randomAccessFile.close();
+                }
+            }
+            catch( IOException e )
+            {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Method write saves this bundle to the specified file. Documentation that was not loaded yet is
+     * read before the file is replaced. The bundle is written to a temporary file first, so a failed write
+     * never leaves a truncated bundle behind.
+     *
+     * @param file the bundle file
+     * @return long the CRC32 checksum of the content that was written.
+     * @throws IOException when the file cannot be written.
+     */
+    long write( File file ) throws IOException
+    {
+        ByteBuffer buffer = encode();
+        CRC32 crc = new CRC32();
+        crc.update( buffer.array(), 0, buffer.limit() );
+        File folder = file.getParentFile();
+        if( null != folder && !folder.exists() )
+        {
+            //noinspection ResultOfMethodCallIgnored
+            folder.mkdirs();
+        }
+
+        File tempFile = new File( file.getPath() + ".tmp" );
+        FileOutputStream outputStream = new FileOutputStream( tempFile );
+        try
+        {
+            FileChannel channel = outputStream.getChannel();
+            while( buffer.hasRemaining() )
+            {
+                channel.write( buffer );
+            }
+        }
+        finally
+        {
+            outputStream.close();
+        }
+
+        if( !tempFile.renameTo( file ) )
+        {
+            // Some platforms do not rename over an existing file
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            if( !tempFile.renameTo( file ) )
+            {
+                throw new IOException( "Unable to replace template bundle " + file );
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Method encode converts this bundle to its file format.
+     *
+     * @return ByteBuffer the encoded bundle, ready to be written.
+     * @throws UnsupportedEncodingException never, UTF-8 is always supported
+     */
+    private ByteBuffer encode() throws UnsupportedEncodingException
+    {
+        int count = entries.size();
+        byte[][] names = new byte[count][];
+        byte[][] texts = new byte[count][];
+        byte[][] documentation = new byte[count][];
+
+        int tableLength = 12;
+        int textsLength = 0;
+        int documentationLength = 0;
+        int i = 0;
+        for( Map.Entry<String, Entry> entry : entries.entrySet() )
+        {
+            names[i] = entry.getKey().getBytes( ENCODING );
+            texts[i] = entry.getValue().text.getBytes( ENCODING );
+            String doc = entry.getValue().documentation.get();
+            documentation[i] = null != doc ? doc.getBytes( ENCODING ) : null;
+
+            tableLength += 2 + names[i].length + 16;
+            textsLength += texts[i].length;
+            documentationLength += null != documentation[i] ? documentation[i].length : 0;
+            i++;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate( tableLength + textsLength + documentationLength );
+        buffer.putInt( MAGIC ).putInt( VERSION ).putInt( count );
+        int textOffset = tableLength;
+        int documentationOffset = tableLength + textsLength;
+        for( i = 0; i < count; i++ )
+        {
+            buffer.putShort( (short) names[i].length ).put( names[i] );
+            buffer.putInt( textOffset ).putInt( texts[i].length );
+            textOffset += texts[i].length;
+            if( null != documentation[i] )
+            {
+                buffer.putInt( documentationOffset ).putInt( documentation[i].length );
+                documentationOffset += documentation[i].length;
+            }
+            else
+            {
+                buffer.putInt( documentationOffset ).putInt( -1 );
+            }
+        }
+        for( i = 0; i < count; i++ )
+        {
+            buffer.put( texts[i] );
+        }
+        for( i = 0; i < count; i++ )
+        {
+            if( null != documentation[i] )
+            {
+                buffer.put( documentation[i] );
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
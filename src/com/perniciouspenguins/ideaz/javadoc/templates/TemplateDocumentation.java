@@ -0,0 +1,39 @@
+package com.perniciouspenguins.ideaz.javadoc.templates;
+
+/**
+ * Class TemplateDocumentation holds the HTML documentation of a template. The documentation is only
+ * shown by the template editor, so it is loaded on first use instead of together with the template.
+ */
+abstract class TemplateDocumentation
+{
+    private volatile boolean loaded = false;
+    private String documentation = null;
+
+    /**
+     * Method get returns the documentation, loading it on the first call.
+     *
+     * @return String the HTML documentation or null if there is none.
+     */
+    String get()
+    {
+        if( !loaded )
+        {
+            synchronized( this )
+            {
+                if( !loaded )
+                {
+                    documentation = load();
+                    loaded = true;
+                }
+            }
+        }
+        return documentation;
+    }
+
+    /**
+     * Method load reads the documentation. Called at most once.
+     *
+     * @return String the HTML documentation or null if it is not available.
+     */
+    protected abstract String load();
+}
@@ -0,0 +1,126 @@
+package com.perniciouspenguins.ideaz.javadoc.templates;
+
+import com.intellij.openapi.diagnostic.DefaultLogger;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileAdapter;
+import com.intellij.openapi.vfs.VirtualFileEvent;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.VirtualFileMoveEvent;
+import com.intellij.openapi.vfs.VirtualFilePropertyEvent;
+
+import java.io.File;
+
+/**
+ * Class TemplateFileListener watches the template folder in the IDEA configuration and imports every
+ * template file that is changed, created, deleted or renamed into the template bundle, so manual edits
+ * take effect without reading the templates on every lookup.
+ */
+public class TemplateFileListener extends VirtualFileAdapter
+{
+    private final Logger log = new DefaultLogger( "JavaDocManager" );
+    private final String templateFolderPath;
+    private LocalFileSystem.WatchRequest watchRequest = null;
+
+    /**
+     * Constructor TemplateFileListener creates a new TemplateFileListener instance.
+     */
+    public TemplateFileListener()
+    {
+        File templateFolder = TemplateManager.getInstance().getTemplateFolder();
+        templateFolderPath = FileUtil.toSystemIndependentName( templateFolder.getAbsolutePath() );
+    }
+
+    /**
+     * Method register starts watching the template folder.
+     */
+    public void register()
+    {
+        LocalFileSystem localFileSystem = LocalFileSystem.getInstance();
+        watchRequest = localFileSystem.addRootToWatch( templateFolderPath, false );
+
+        // The VFS only reports events for files it has seen, so load the folder once
+        VirtualFile templateFolder = localFileSystem.refreshAndFindFileByPath( templateFolderPath );
+        if( null != templateFolder )
+        {
+            templateFolder.getChildren();
+        }
+        VirtualFileManager.getInstance().addVirtualFileListener( this );
+        log.debug( "Watching templates in " + templateFolderPath );
+    }
+
+    /**
+     * Method unregister stops watching the template folder.
+     */
+    public void unregister()
+    {
+        VirtualFileManager.getInstance().removeVirtualFileListener( this );
+        if( null != watchRequest )
+        {
+            LocalFileSystem.getInstance().removeWatchedRoot( watchRequest );
+            watchRequest = null;
+        }
+    }
+
+    /**
+     * @see VirtualFileAdapter#contentsChanged(VirtualFileEvent)
+     */
+    public void contentsChanged( VirtualFileEvent event )
+    {
+        templateFileChanged( event.getParent(), event.getFileName() );
+    }
+
+    /**
+     * @see VirtualFileAdapter#fileCreated(VirtualFileEvent)
+     */
+    public void fileCreated( VirtualFileEvent event )
+    {
+        templateFileChanged( event.getParent(), event.getFileName() );
+    }
+
+    /**
+     * @see VirtualFileAdapter#fileDeleted(VirtualFileEvent)
+     */
+    public void fileDeleted( VirtualFileEvent event )
+    {
+        templateFileChanged( event.getParent(), event.getFileName() );
+    }
+
+    /**
+     * @see VirtualFileAdapter#fileMoved(VirtualFileMoveEvent)
+     */
+    public void fileMoved( VirtualFileMoveEvent event )
+    {
+        templateFileChanged( event.getOldParent(), event.getFileName() );
+        templateFileChanged( event.getNewParent(), event.getFileName() );
+    }
+
+    /**
+     * @see VirtualFileAdapter#propertyChanged(VirtualFilePropertyEvent)
+     */
+    public void propertyChanged( VirtualFilePropertyEvent event )
+    {
+        if( VirtualFile.PROP_NAME.equals( event.getPropertyName() ) )
+        {
+            templateFileChanged( event.getParent(), String.valueOf( event.getOldValue() ) );
+            templateFileChanged( event.getParent(), String.valueOf( event.getNewValue() ) );
+        }
+    }
+
+    /**
+     * Method templateFileChanged notifies the TemplateManager of the specified file if the file is located
+     * in the template folder.
+     *
+     * @param parent the folder containing the file
+     * @param fileName the name of the file
+     */
+    private void templateFileChanged( VirtualFile parent, String fileName )
+    {
+        if( null != parent && templateFolderPath.equals( parent.getPath() ) )
+        {
+            TemplateManager.getInstance().templateFileChanged( fileName );
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.perniciouspenguins.ideaz.javadoc.templates;
 
 import com.intellij.ide.fileTemplates.FileTemplateUtil;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.diagnostic.DefaultLogger;
 import com.intellij.openapi.diagnostic.Logger;
@@ -9,11 +10,18 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Properties;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
 
 /**
  * Created by IntelliJ IDEA.
@@ -50,10 +58,42 @@ public class TemplateManager
 
     private static final String TEMPLATE_DEFINITION_EXTENSION = ".tpl";
     private static final String TEMPLATE_DESCRIPTION_EXTENSION = ".html";
+    private static final String TEMPLATE_ENCODING = "UTF-8";
 
     private static final String TEMPLATE_LOCATION = "fileTemplates/jds/";
+    private static final Map<String, String> TEMPLATE_TYPES_BY_NAME = new HashMap<String, String>();
+
+    static
+    {
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_CLASS_JAVADOC, TEMPLATE_CLASS );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_ENUM_JAVADOC, TEMPLATE_ENUM );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_INTERFACE_JAVADOC, TEMPLATE_INTERFACE );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_FIELD_JAVADOC, TEMPLATE_FIELD );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_CONSTRUCTOR_JAVADOC, TEMPLATE_CONSTRUCTOR );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_METHOD_JAVADOC, TEMPLATE_PLAIN_METHOD );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_PARAMETER_JAVADOC, TEMPLATE_METHOD_PARAM );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_RETURN_TYPE_JAVADOC, TEMPLATE_METHOD_RETURN_TYPE );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_THROWS_CLAUSE_JAVADOC, TEMPLATE_METHOD_THROWS );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_GET_METHOD_JAVADOC, TEMPLATE_GETTER_METHOD );
+        TEMPLATE_TYPES_BY_NAME.put( TEMPLATE_SET_METHOD_JAVADOC, TEMPLATE_SETTER_METHOD );
+    }
+
     private final Logger log = new DefaultLogger( "JavaDocManager" );
-    private static TemplateManager instance = null;
+    private final ConcurrentMap<String, FutureTask<Template>> templateCache =
+            new ConcurrentHashMap<String, FutureTask<Template>>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Object bundleLock = new Object();
+    private TemplateBundle bundle = null;
+    /** The checksum of the template bundle this manager last wrote, null if it did not write one yet **/
+    private Long writtenChecksum = null;
+
+    /**
+     * Holder of the singleton instance, initialized by the class loader on first use.
+     */
+    private static final class InstanceHolder
+    {
+        private static final TemplateManager INSTANCE = new TemplateManager();
+    }
 
     /**
      * Returns the singleton instance of this class
@@ -61,19 +101,240 @@ public class TemplateManager
      */
     public static TemplateManager getInstance()
     {
-        if( null == instance )
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Method loadTemplate returns the template data based on the type name. Templates are read and
+     * compiled only once, subsequent calls are served from the template cache. The returned template is
+     * immutable and shared by all callers.
+     * <p/>
+     * This method may be called from any thread. When several threads ask for a template that is not
+     * cached yet, only the first one reads it while the others wait for its result.
+     * @param type the type of template to load
+     * @return an intialized template object representing the specified type.
+     */
+    public Template loadTemplate( final String type )
+    {
+        FutureTask<Template> load = templateCache.get( type );
+        if( null == load )
         {
-            instance = new TemplateManager();
+            FutureTask<Template> newLoad = new FutureTask<Template>( new Callable<Template>()
+            {
+                /**
+                 * Method call reads the template from disk or the jar.
+                 * @return the template or null if the type is unknown.
+                 */
+                public Template call()
+                {
+                    return readTemplateDefinition( type );
+                }
+            } );
+            load = templateCache.putIfAbsent( type, newLoad );
+            if( null == load )
+            {
+                load = newLoad;
+                newLoad.run();
+            }
+        }
+
+        try
+        {
+            return load.get();
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            log.debug( "Interrupted while waiting for template " + type + ", reading it directly" );
+            return readTemplateDefinition( type );
+        }
+        catch( ExecutionException e )
+        {
+            // Do not keep the failure around, the next call tries again
+            templateCache.remove( type, load );
+            log.error( "Failed to load template " + type + ": " + e.getCause(), e.getCause() );
+            return null;
         }
-        return instance;
     }
 
     /**
-     * Method loadTemplate loads the template data based on the type name.
-     * @param type the type of template to load
+     * Method invalidateTemplate removes the specified template type from the template cache so that
+     * the next call to loadTemplate reads it again.
+     * @param type the type of template to invalidate
+     */
+    public void invalidateTemplate( String type )
+    {
+        templateCache.remove( type );
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Method invalidateTemplates clears the template cache and drops the template bundle, so the next
+     * call to loadTemplate reads the bundle from disk again.
+     */
+    public void invalidateTemplates()
+    {
+        synchronized( bundleLock )
+        {
+            bundle = null;
+        }
+        templateCache.clear();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Method getGeneration returns a number that changes every time a template is invalidated. Results
+     * derived from templates that were loaded after reading the generation can be cached under it.
+     * @return long the current template generation.
+     */
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+
+    /**
+     * Method templateFileChanged handles a change of the specified file in the template folder. The
+     * template bundle is the file that holds the templates; a template file that was edited by hand is
+     * imported into the bundle, a bundle that was replaced by someone else is read again. Other files are
+     * ignored.
+     * <p/>
+     * The file is read on a pooled thread, so the file system listener that reports the change never
+     * waits for disk IO.
+     * @param fileName the name of the file that changed
+     * @return true if the file defines a template, false otherwise.
+     */
+    public boolean templateFileChanged( final String fileName )
+    {
+        if( !TemplateBundle.FILE_NAME.equals( fileName ) && null == getTemplateType( fileName ) )
+        {
+            return false;
+        }
+        ApplicationManager.getApplication().executeOnPooledThread( new Runnable()
+        {
+            /**
+             * Method run reads the file and applies the change.
+             */
+            public void run()
+            {
+                reloadTemplateFile( fileName );
+            }
+        } );
+        return true;
+    }
+
+    /**
+     * Method getTemplateType returns the type of template that is defined by the specified template file.
+     * @param fileName the name of the file
+     * @return String the template type or null if the file does not define a template.
+     */
+    private String getTemplateType( String fileName )
+    {
+        if( null != fileName && fileName.endsWith( TEMPLATE_DEFINITION_EXTENSION ) )
+        {
+            return TEMPLATE_TYPES_BY_NAME.get(
+                    fileName.substring( 0, fileName.length() - TEMPLATE_DEFINITION_EXTENSION.length() ) );
+        }
+        return null;
+    }
+
+    /**
+     * Method reloadTemplateFile imports the specified template file into the template bundle or, for the
+     * bundle itself, drops the loaded bundle. A bundle whose content is the same as what this manager last
+     * wrote to it is ignored, as that change is already in effect.
+     * @param fileName the name of the file that changed
+     */
+    private void reloadTemplateFile( String fileName )
+    {
+        String type = getTemplateType( fileName );
+        synchronized( bundleLock )
+        {
+            if( null == type )
+            {
+                if( null == bundle ||
+                    (null != writtenChecksum && writtenChecksum == checksum( getBundleFile() )) )
+                {
+                    // Not loaded yet, the next lookup reads it, or written by this manager
+                    return;
+                }
+                log.debug( "Template bundle changed, invalidating all templates" );
+                bundle = null;
+            }
+            else
+            {
+                log.debug( "Template file " + fileName + " changed, importing template " + type );
+                String name = fileName.substring( 0, fileName.length() - TEMPLATE_DEFINITION_EXTENSION.length() );
+                TemplateBundle templateBundle = getBundle();
+                templateBundle.put( name, readLegacyTemplate( name ), getDocumentation( templateBundle, name ) );
+                writeBundle( templateBundle );
+            }
+        }
+        if( null == type )
+        {
+            invalidateTemplates();
+        }
+        else
+        {
+            invalidateTemplate( type );
+        }
+    }
+
+    /**
+     * Method checksum computes the CRC32 checksum of the content of the specified file.
+     * @param file the file
+     * @return long the checksum or -1 if the file does not exist or cannot be read.
+     */
+    private long checksum( File file )
+    {
+        if( !file.isFile() )
+        {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = new FileInputStream( file );
+            byte[] buffer = new byte[8192];
+            for( int read = inputStream.read( buffer ); read != -1; read = inputStream.read( buffer ) )
+            {
+                crc.update( buffer, 0, read );
+            }
+            return crc.getValue();
+        }
+        catch( IOException e )
+        {
+            return -1;
+        }
+        finally
+        {
+            if( null != inputStream )
+            {
+                try
+                {
+                    inputStream.close();
+                }
+                catch( IOException e )
+                {
+                }
+            }
+        }
+    }
+
+    /**
+     * Method getTemplateFolder returns the folder in the IDEA configuration that holds the templates.
+     * @return File the template folder.
+     */
+    public File getTemplateFolder()
+    {
+        return new File( new File( PathManager.getConfigPath() ), TEMPLATE_LOCATION );
+    }
+
+    /**
+     * Method readTemplateDefinition reads the template data based on the type name.
+     * @param type the type of template to read
      * @return an intialized template object representing the specified type.
      */
-    public Template loadTemplate( String type )
+    private Template readTemplateDefinition( String type )
     {
         Template template = null;
         if( TEMPLATE_INTERFACE.equals( type ) )
@@ -131,156 +392,224 @@ public class TemplateManager
             log.debug( " - method is not a getter/setter/constructor" );
             template = readTemplateAndDocumentation( TEMPLATE_PLAIN_METHOD, TEMPLATE_METHOD_JAVADOC );
         }
-        if( null != template )
-        {
-            template.setProperties( extractTokensFromTemplate( template ) );
-        }
         return template;
     }
 
     /**
-     * Method extractTokensFromTemplate scans for template tokens in the text of the specified
-     * template.
-     *
-     * @param template of type Template
-     * @return Properties a collection of tokens that were found in the template.
-     */
-    private Properties extractTokensFromTemplate( Template template )
-    {
-        Properties properties = new Properties();
-        String templateText = template.getText();
-        int tokenStart = 0;
-        while( tokenStart > -1 && tokenStart < templateText.length() )
-        {
-            tokenStart = templateText.indexOf( "${", tokenStart );
-            if( tokenStart != -1 )
-            {
-                String token = templateText.substring( tokenStart + 2, templateText.indexOf( "}", tokenStart ) );
-                properties.put( token, "" );
-                tokenStart = tokenStart + token.length();
-            }
-        }
-        return properties;
-    }
-
-
-    /**
-     * Method readTemplateAndDocumentation loads the template data from disk or, if not present, from the jar file.
+     * Method readTemplateAndDocumentation loads the template data from the template bundle. The
+     * documentation is only read when the template editor asks for it.
      * @param type template type
      * @param name template name
      * @return the template representing the specified type and name.
      */
-    private Template readTemplateAndDocumentation( String type, String name )
+    private Template readTemplateAndDocumentation( String type, final String name )
     {
-        Template template = new Template( type, name );
+        String text;
+        final TemplateDocumentation bundleDocumentation;
         log.info( "Retrieving template " + name );
-        File configFolder = new File( PathManager.getConfigPath() );
-        File templateFolder = new File( configFolder, TEMPLATE_LOCATION );
-
-        File tpl = new File( templateFolder, name + TEMPLATE_DEFINITION_EXTENSION );
-        InputStream inputStream = null;
-        ClassLoader loader = getClass().getClassLoader();
-        if( tpl.exists() )
+        synchronized( bundleLock )
         {
-            log.info( "Template " + name + " already exists at " + templateFolder.getPath() );
-            try
+            TemplateBundle templateBundle = getBundle();
+            if( !templateBundle.contains( name ) )
             {
-                template.setText( readTemplate( new FileInputStream( tpl ) ) );
-            }
-            catch( FileNotFoundException e )
-            {
-                log.error( e.getMessage() );
+                templateBundle.put( name, readLegacyTemplate( name ), getLegacyDocumentation( name ) );
+                writeBundle( templateBundle );
             }
+            text = templateBundle.getText( name );
+            bundleDocumentation = templateBundle.getDocumentation( name );
         }
-        else
+        return new Template( type, name, text, new TemplateDocumentation()
         {
-            log.info( "Template " + name + " not found at " + templateFolder.getPath() + ", reading from jar..." );
-
-            try
+            protected String load()
             {
-                inputStream = loader.getResourceAsStream( TEMPLATE_LOCATION + name + TEMPLATE_DEFINITION_EXTENSION );
-                template.setText( extractAndReadTemplate( inputStream, tpl ) );
+                String documentation = bundleDocumentation.get();
+                return null != documentation ? documentation : readLegacyDocumentation( name );
             }
-            finally
+        } );
+    }
+
+    /**
+     * Method getBundleFile returns the file holding the template bundle.
+     * @return File the template bundle file.
+     */
+    private File getBundleFile()
+    {
+        return new File( getTemplateFolder(), TemplateBundle.FILE_NAME );
+    }
+
+    /**
+     * Method getBundle returns the template bundle, reading it from disk on first use. When there is no
+     * bundle yet, it is created from the legacy template files. Template files that were edited by hand
+     * after the bundle was last written, for example while the IDE was closed, are imported into it. Must
+     * be called while holding the bundle lock.
+     * @return TemplateBundle the template bundle.
+     */
+    private TemplateBundle getBundle()
+    {
+        if( null == bundle )
+        {
+            File bundleFile = getBundleFile();
+            if( bundleFile.exists() )
             {
-                if( null != inputStream )
+                try
                 {
-                    try
-                    {
-                        inputStream.close();
-                    }
-                    catch( IOException e )
-                    {
-                    }
+                    bundle = TemplateBundle.read( bundleFile );
+                    importChangedTemplateFiles( bundle, bundleFile.lastModified() );
                 }
+                catch( IOException e )
+                {
+                    log.warn( "Unable to read template bundle, importing templates again: " + e.getMessage() );
+                }
+            }
+            if( null == bundle )
+            {
+                bundle = importLegacyTemplates();
+                writeBundle( bundle );
             }
         }
+        return bundle;
+    }
 
-        try
+    /**
+     * Method importChangedTemplateFiles imports the template files in the template folder that were
+     * modified after the specified time into the specified bundle, and saves the bundle if any were.
+     * Must be called while holding the bundle lock.
+     * @param templateBundle the bundle that was read from disk
+     * @param bundleModified the time the bundle file was last modified
+     */
+    private void importChangedTemplateFiles( TemplateBundle templateBundle, long bundleModified )
+    {
+        File[] files = getTemplateFolder().listFiles();
+        if( null == files )
         {
-            inputStream = loader.getResourceAsStream( TEMPLATE_LOCATION + name + TEMPLATE_DESCRIPTION_EXTENSION );
-            template.setDocumentation( readTemplate( inputStream ) );
+            return;
         }
-        finally
+        boolean imported = false;
+        for( File file : files )
         {
-            if( null != inputStream )
+            if( null != getTemplateType( file.getName() ) && file.lastModified() > bundleModified )
             {
-                try
-                {
-                    inputStream.close();
-                }
-                catch( IOException e ){/*Nothing we can do*/}
+                String name = file.getName().substring(
+                        0, file.getName().length() - TEMPLATE_DEFINITION_EXTENSION.length() );
+                log.info( "Template file " + file.getName() + " is newer than the bundle, importing it" );
+                templateBundle.put( name, readLegacyTemplate( name ), getDocumentation( templateBundle, name ) );
+                imported = true;
             }
         }
-        return template;
+        if( imported )
+        {
+            writeBundle( templateBundle );
+        }
     }
 
-
     /**
-     * Method extractAndReadTemplate reads the template data from the jar and saves a local disk copy.
-     *
-     * @param template the stream to read the template
-     * @param outputFile the file to write to on disk
-     * @return String the template text
+     * Method importLegacyTemplates creates a template bundle from the separate template and documentation
+     * files in the template folder or, if not present, in the jar file.
+     * @return TemplateBundle the imported templates.
      */
-    private String extractAndReadTemplate( InputStream template, File outputFile )
+    private TemplateBundle importLegacyTemplates()
     {
-        FileOutputStream fileOutputStream = null;
-        String tpl = null;
-        try
+        log.info( "Importing templates into " + TemplateBundle.FILE_NAME );
+        TemplateBundle templateBundle = new TemplateBundle();
+        for( String name : TEMPLATE_TYPES_BY_NAME.keySet() )
         {
-            tpl = readTemplate( template );
-            if( !outputFile.getParentFile().exists() )
-            {
-                //noinspection ResultOfMethodCallIgnored
-                outputFile.getParentFile().mkdirs();
-            }
-            fileOutputStream = new FileOutputStream( outputFile );
-            fileOutputStream.write( tpl.getBytes() );
-            fileOutputStream.flush();
+            templateBundle.put( name, readLegacyTemplate( name ), getLegacyDocumentation( name ) );
         }
-        catch( FileNotFoundException e )
+        return templateBundle;
+    }
+
+    /**
+     * Method writeBundle saves the specified template bundle and remembers the checksum of what was
+     * written. Must be called while holding the bundle lock.
+     * @param templateBundle the bundle to save
+     */
+    private void writeBundle( TemplateBundle templateBundle )
+    {
+        try
         {
-            log.error( e.getMessage() );
+            writtenChecksum = templateBundle.write( getBundleFile() );
         }
         catch( IOException e )
         {
-            log.error( e.getMessage() );
+            log.error( "Unable to write template bundle: " + e.getMessage() );
         }
-        finally
+    }
+
+    /**
+     * Method readLegacyTemplate reads the text of a template from its own file in the template folder or,
+     * if not present, from the jar file.
+     * @param name template name
+     * @return String the template text.
+     */
+    private String readLegacyTemplate( String name )
+    {
+        File tpl = getTemplateFile( name );
+        if( tpl.exists() )
         {
-            if( null != fileOutputStream )
+            log.info( "Template " + name + " exists at " + tpl.getParent() );
+            try
             {
-                try
-                {
-                    fileOutputStream.close();
-                }
-                catch( IOException e )
-                {
-                }
+                return readTemplate( new FileInputStream( tpl ) );
+            }
+            catch( FileNotFoundException e )
+            {
+                log.error( e.getMessage() );
             }
         }
-        return tpl;
+        log.info( "Reading template " + name + " from jar..." );
+        return readTemplate( getClass().getClassLoader().getResourceAsStream(
+                TEMPLATE_LOCATION + name + TEMPLATE_DEFINITION_EXTENSION ) );
+    }
+
+    /**
+     * Method getTemplateFile returns the file in the template folder that holds the text of a template.
+     * @param name template name
+     * @return File the template file.
+     */
+    private File getTemplateFile( String name )
+    {
+        return new File( getTemplateFolder(), name + TEMPLATE_DEFINITION_EXTENSION );
+    }
+
+    /**
+     * Method getDocumentation returns the documentation of a template in the specified bundle or, if the
+     * bundle does not hold the template, in the jar file.
+     * @param templateBundle the template bundle
+     * @param name template name
+     * @return TemplateDocumentation the documentation of the template.
+     */
+    private TemplateDocumentation getDocumentation( TemplateBundle templateBundle, String name )
+    {
+        TemplateDocumentation documentation = templateBundle.getDocumentation( name );
+        return null != documentation ? documentation : getLegacyDocumentation( name );
+    }
+
+    /**
+     * Method getLegacyDocumentation returns the HTML documentation of a template in the jar file, which is
+     * read on first use.
+     * @param name template name
+     * @return TemplateDocumentation the documentation of the template.
+     */
+    private TemplateDocumentation getLegacyDocumentation( final String name )
+    {
+        return new TemplateDocumentation()
+        {
+            protected String load()
+            {
+                return readLegacyDocumentation( name );
+            }
+        };
+    }
+
+    /**
+     * Method readLegacyDocumentation reads the HTML documentation of a template from the jar file.
+     * @param name template name
+     * @return String the documentation of the template.
+     */
+    private String readLegacyDocumentation( String name )
+    {
+        return readTemplate( getClass().getClassLoader().getResourceAsStream(
+                TEMPLATE_LOCATION + name + TEMPLATE_DESCRIPTION_EXTENSION ) );
     }
 
     /**
@@ -295,7 +624,7 @@ public class TemplateManager
         BufferedReader reader = null;
         try
         {
-            reader = new BufferedReader( new InputStreamReader( template ) );
+            reader = new BufferedReader( new InputStreamReader( template, TEMPLATE_ENCODING ) );
             tpl = readTemplateFromReader( reader );
         }
         catch( Exception e )
@@ -319,7 +648,9 @@ public class TemplateManager
     }
 
     /**
-     * Method saveTemplate writes the new template text to disk.
+     * Method saveTemplate writes the new template text to the template bundle, which is the only file that is
+     * written. A template file in the template folder keeps its older text, but is only imported again
+     * once it is edited by hand.
      *
      * @param template the template to save
      */
@@ -327,35 +658,19 @@ public class TemplateManager
     {
         if( null != template )
         {
-            String templateLocation = TEMPLATE_LOCATION;
-
-            File configFolder = new File( PathManager.getConfigPath() );
-            File templateFolder = new File( configFolder, templateLocation );
-
-            File tpl = new File( templateFolder, template.getName() + TEMPLATE_DEFINITION_EXTENSION );
-            FileOutputStream fileOutputStream = null;
             try
             {
-                fileOutputStream = new FileOutputStream( tpl );
-                fileOutputStream.write( template.getText().getBytes() );
-                fileOutputStream.flush();
-            }
-            catch( Exception e )
-            {
-                e.printStackTrace();
+                synchronized( bundleLock )
+                {
+                    TemplateBundle templateBundle = getBundle();
+                    templateBundle.put( template.getName(), template.getText(),
+                                        getDocumentation( templateBundle, template.getName() ) );
+                    writeBundle( templateBundle );
+                }
             }
             finally
             {
-                if( null != fileOutputStream )
-                {
-                    try
-                    {
-                        fileOutputStream.close();
-                    }
-                    catch( IOException e )
-                    {
-                    }
-                }
+                invalidateTemplate( template.getType() );
             }
         }
     }
@@ -392,18 +707,59 @@ public class TemplateManager
     }
 
     /**
-     * Method merge ...
+     * Method merge replaces the tokens in the template with the values of the specified context.
+     * Plain token templates are rendered natively, Velocity is only used for templates that need it.
      *
      * @param template of type Template
-     * @return String
+     * @param context the token values, created through {@link Template#createRenderContext()}
+     * @return String the merged text
+     */
+    public String merge( Template template, RenderContext context )
+    {
+        CompiledTemplate compiledTemplate = template.getCompiledTemplate();
+        if( !compiledTemplate.requiresVelocity() )
+        {
+            context.resolveDefaults();
+            return compiledTemplate.render( context );
+        }
+        return mergeWithVelocity( template, compiledTemplate.getText(), context );
+    }
+
+    /**
+     * Method merge renders the comment template of the specified request, followed by the lines that
+     * were added to the request.
+     *
+     * @param request the render request, created through {@link Template#createRenderRequest()}
+     * @return String the merged text
+     */
+    public String merge( RenderRequest request )
+    {
+        Template template = request.getTemplate();
+        CompiledTemplate compiledBody = template.getCompiledBody();
+        if( !compiledBody.requiresVelocity() )
+        {
+            request.getContext().resolveDefaults();
+            StringBuilder sb = new StringBuilder( compiledBody.getLength() + 64 );
+            return request.appendLines( compiledBody.renderTo( request.getContext(), sb ) ).toString();
+        }
+        String text = request.appendLines( new StringBuilder( compiledBody.getText() ) ).toString();
+        return mergeWithVelocity( template, text, request.getContext() );
+    }
+
+    /**
+     * Method mergeWithVelocity merges the specified text through the IDEA file template engine.
+     *
+     * @param template the template the text belongs to
+     * @param text the text to merge
+     * @param context the token values
+     * @return String the merged text or null if merging failed.
      */
-    public String merge( Template template )
+    private String mergeWithVelocity( Template template, String text, RenderContext context )
     {
         String mergedText = null;
         try
         {
-            mergedText = FileTemplateUtil.mergeTemplate(
-                    template.getProperties(), template.getText().replaceAll( "\n\n", "\n" ), true );
+            mergedText = FileTemplateUtil.mergeTemplate( context.toProperties(), text, true );
         }
         catch( IOException e )
         {
@@ -10,6 +10,7 @@ import com.intellij.openapi.options.Configurable;
 import com.intellij.openapi.options.ConfigurationException;
 import com.intellij.util.xmlb.XmlSerializationException;
 import com.intellij.util.xmlb.XmlSerializer;
+import com.perniciouspenguins.ideaz.javadoc.templates.TemplateFileListener;
 import com.perniciouspenguins.ideaz.javadoc.templates.ui.JavaDocTemplateEditor;
 import org.jdom.Element;
 import org.jetbrains.annotations.NonNls;
@@ -35,6 +36,7 @@ public class TemplateConfiguration implements ApplicationComponent, Configurable
     private Logger log = new DefaultLogger( "JavaDocManager" );
     private ImageIcon icon = null;
     private JavaDocTemplateEditor javaDocTemplateEditor = null;
+    private TemplateFileListener templateFileListener = null;
 
     public static final String COMPONENT_NAME="JavaDocManager.TemplateConfiguration";
 
@@ -58,10 +60,12 @@ public class TemplateConfiguration implements ApplicationComponent, Configurable
     }
 
     /**
-     * Method initComponent ...
+     * Method initComponent starts watching the template files for changes.
      */
     public void initComponent()
     {
+        templateFileListener = new TemplateFileListener();
+        templateFileListener.register();
     }
 
     /**
@@ -69,6 +73,11 @@ public class TemplateConfiguration implements ApplicationComponent, Configurable
      */
     public void disposeComponent()
     {
+        if( null != templateFileListener )
+        {
+            templateFileListener.unregister();
+            templateFileListener = null;
+        }
         icon = null;
         javaDocTemplateEditor = null;
     }
@@ -18,8 +18,6 @@ import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.text.*;
 import java.awt.*;
-import java.util.Iterator;
-import java.util.Properties;
 
 /**
  * Author: Raymond P. Brandon Date: Feb 11, 2007 Time: 6:29:28 PM
@@ -143,6 +141,8 @@ public class JavaDocTemplateEditor
         DefaultListModel listModel = new DefaultListModel();
 
         TemplateManager templateManager = TemplateManager.getInstance();
+        // Show what is currently on disk rather than what was cached during generation
+        templateManager.invalidateTemplates();
         listModel.addElement( templateManager.loadTemplate( TemplateManager.TEMPLATE_CLASS ) );
         listModel.addElement( templateManager.loadTemplate( TemplateManager.TEMPLATE_CONSTRUCTOR ) );
         listModel.addElement( templateManager.loadTemplate( TemplateManager.TEMPLATE_GETTER_METHOD ) );
@@ -182,10 +182,9 @@ public class JavaDocTemplateEditor
             log.error( e.getMessage() );
         }
 
-        Properties tplProps = selectedTemplate.getProperties();
-        for( Iterator<Object> iterator = tplProps.keySet().iterator(); iterator.hasNext(); )
+        for( String token : selectedTemplate.getTokens() )
         {
-            String key = "${" + iterator.next() + "}";
+            String key = "${" + token + "}";
             int keyStart = text.indexOf( key );
 
             while( keyStart > 0 && keyStart < text.length() )
@@ -227,17 +226,43 @@ public class JavaDocTemplateEditor
     {
         if( null != previousSelectedTemplate )
         {
-            previousSelectedTemplate.setText( templateTextPane.getText() );
-            TemplateManager.getInstance().saveTemplate( previousSelectedTemplate );
+            Template changedTemplate = previousSelectedTemplate.withText( templateTextPane.getText() );
+            TemplateManager.getInstance().saveTemplate( changedTemplate );
+            replaceTemplate( previousSelectedTemplate, changedTemplate );
         }
         else
         {
-            selectedTemplate.setText( templateTextPane.getText() );
-            TemplateManager.getInstance().saveTemplate( selectedTemplate );
+            Template changedTemplate = selectedTemplate.withText( templateTextPane.getText() );
+            TemplateManager.getInstance().saveTemplate( changedTemplate );
+            replaceTemplate( selectedTemplate, changedTemplate );
         }
         dataChanged = false;
     }
 
+    /**
+     * Method replaceTemplate replaces a template in the template list after it was changed.
+     *
+     * @param template the template as it was before the change
+     * @param changedTemplate the changed template
+     */
+    private void replaceTemplate( Template template, Template changedTemplate )
+    {
+        DefaultListModel listModel = (DefaultListModel) javaDocTypeList.getModel();
+        int index = listModel.indexOf( template );
+        if( index != -1 )
+        {
+            listModel.set( index, changedTemplate );
+        }
+        if( previousSelectedTemplate == template )
+        {
+            previousSelectedTemplate = changedTemplate;
+        }
+        if( selectedTemplate == template )
+        {
+            selectedTemplate = changedTemplate;
+        }
+    }
+
     {
 // GUI initializer generated by IntelliJ IDEA GUI Designer
 // >>> IMPORTANT!! <<<
@@ -0,0 +1,143 @@
+package com.perniciouspenguins.ideaz.javadoc.util;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Class AncestorMethodNames is a Bloom filter of the names of all methods that the super classes and the
+ * implemented or extended interfaces of a class declare or inherit. A method whose name is ruled out by
+ * the filter cannot override or implement anything, so its super method lookup can be skipped
+ * altogether. A name that passes the filter may still be a false positive, in which case the hierarchy
+ * is walked as usual.
+ * <p/>
+ * The filter uses about ten bits per name and three hash functions, which keeps false positives around
+ * one percent. It is cached on the class until the Java structure of the project changes.
+ */
+final class AncestorMethodNames
+{
+    private static final Key<CachedValue<AncestorMethodNames>> NAMES_KEY = Key.create( "JavaDocManager.ancestorNames" );
+
+    private static final int BITS_PER_NAME = 10;
+    private static final int HASH_COUNT = 3;
+
+    private final long[] bits;
+    private final int mask;
+
+    /**
+     * Constructor AncestorMethodNames builds the filter of the method names of all ancestors of the
+     * specified class.
+     *
+     * @param psiClass the class
+     */
+    private AncestorMethodNames( PsiClass psiClass )
+    {
+        Set<String> names = new HashSet<String>();
+        addMethodNames( names, psiClass.getSuperClass() );
+        for( PsiClass superType : psiClass.getSupers() )
+        {
+            addMethodNames( names, superType );
+        }
+
+        int size = Long.SIZE;
+        while( size < names.size() * BITS_PER_NAME )
+        {
+            size <<= 1;
+        }
+        bits = new long[size / Long.SIZE];
+        mask = size - 1;
+        for( String name : names )
+        {
+            int hash = name.hashCode();
+            int step = secondaryHash( hash );
+            for( int i = 0; i < HASH_COUNT; i++ )
+            {
+                int bit = (hash + i * step) & mask;
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+
+    /**
+     * Method addMethodNames adds the names of all methods that the specified ancestor declares or inherits.
+     *
+     * @param names the names collected so far
+     * @param ancestor the ancestor, may be null
+     */
+    private static void addMethodNames( Set<String> names, PsiClass ancestor )
+    {
+        if( null != ancestor )
+        {
+            ProgressManager.checkCanceled();
+            for( PsiMethod method : ancestor.getAllMethods() )
+            {
+                names.add( method.getName() );
+            }
+        }
+    }
+
+    /**
+     * Method secondaryHash derives the step between the bits of a name from its hash code. The step is odd,
+     * so the bits of a name never coincide.
+     *
+     * @param hash the hash code of the name
+     * @return int the step between the bits of the name.
+     */
+    private static int secondaryHash( int hash )
+    {
+        return ((hash >>> 16) | (hash << 16)) * 0x9E3779B9 | 1;
+    }
+
+    /**
+     * Method getInstance returns the cached ancestor method names of the specified class.
+     *
+     * @param psiClass the class
+     * @return AncestorMethodNames the method names of the ancestors of the class.
+     */
+    static AncestorMethodNames getInstance( final PsiClass psiClass )
+    {
+        return CachedValuesManager.getManager( psiClass.getProject() ).getCachedValue(
+                psiClass, NAMES_KEY, new CachedValueProvider<AncestorMethodNames>()
+        {
+            /**
+             * Method compute collects the method names of the ancestors of the class.
+             * @return the names, valid until the Java structure is modified.
+             */
+            public Result<AncestorMethodNames> compute()
+            {
+                return Result.create( new AncestorMethodNames( psiClass ),
+                                      PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT );
+            }
+        }, false );
+    }
+
+    /**
+     * Method mayDeclare determines whether an ancestor of the class may declare a method with the specified
+     * name.
+     *
+     * @param methodName the method name
+     * @return boolean false if no ancestor declares a method with the name, true if one probably does.
+     */
+    boolean mayDeclare( String methodName )
+    {
+        int hash = methodName.hashCode();
+        int step = secondaryHash( hash );
+        for( int i = 0; i < HASH_COUNT; i++ )
+        {
+            int bit = (hash + i * step) & mask;
+            if( (bits[bit >>> 6] & (1L << bit)) == 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
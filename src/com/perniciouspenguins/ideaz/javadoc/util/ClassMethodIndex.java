@@ -0,0 +1,233 @@
+package com.perniciouspenguins.ideaz.javadoc.util;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiSubstitutor;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.TypeConversionUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class ClassMethodIndex indexes the methods of a class by name, either all of them, including the
+ * inherited ones, or only the ones the class declares itself. The
+ * erased signature key of every method is computed once when the index is built, so finding a method
+ * with a given name and parameter types only compares the keys of the few methods that share the name.
+ * Generic methods whose erasure differs are matched again after substituting the type arguments that
+ * the sub class binds, so {@code compareTo(Foo)} is found to implement {@code Comparable<T>.compareTo(T)}.
+ * <p/>
+ * Both indexes of a class are cached on the class until the Java structure of the project changes.
+ */
+final class ClassMethodIndex
+{
+    private static final Key<CachedValue<ClassMethodIndex>> INDEX_KEY = Key.create( "JavaDocManager.methodIndex" );
+    private static final Key<CachedValue<ClassMethodIndex>> DECLARED_INDEX_KEY =
+            Key.create( "JavaDocManager.declaredMethodIndex" );
+    private final Map<String, Candidate[]> methodsByName;
+    private final Candidate[] constructors;
+
+    /**
+     * A method of the indexed class together with its erased signature key.
+     */
+    private static final class Candidate
+    {
+        private final PsiMethod method;
+        private final int signatureKey;
+        private final int parameterCount;
+        private final boolean generic;
+
+        /**
+         * Constructor Candidate creates a new Candidate instance.
+         *
+         * @param method the indexed method
+         */
+        private Candidate( PsiMethod method )
+        {
+            this.method = method;
+            this.signatureKey = SignatureKeys.getKey( method );
+            this.parameterCount = method.getParameterList().getParametersCount();
+            this.generic = SignatureKeys.isGeneric( method );
+        }
+    }
+
+    /**
+     * Constructor ClassMethodIndex builds the index of the specified class.
+     *
+     * @param psiClass the class to index
+     * @param declaredOnly true to index only the methods declared by the class, false to include the
+     * inherited methods
+     */
+    private ClassMethodIndex( PsiClass psiClass, boolean declaredOnly )
+    {
+        Map<String, List<Candidate>> candidates = new HashMap<String, List<Candidate>>();
+        for( PsiMethod method : declaredOnly ? psiClass.getMethods() : psiClass.getAllMethods() )
+        {
+            ProgressManager.checkCanceled();
+            if( !method.isConstructor() )
+            {
+                List<Candidate> list = candidates.get( method.getName() );
+                if( null == list )
+                {
+                    list = new ArrayList<Candidate>( 2 );
+                    candidates.put( method.getName(), list );
+                }
+                list.add( new Candidate( method ) );
+            }
+        }
+        methodsByName = new HashMap<String, Candidate[]>( candidates.size() * 4 / 3 + 1 );
+        for( Map.Entry<String, List<Candidate>> entry : candidates.entrySet() )
+        {
+            methodsByName.put( entry.getKey(), entry.getValue().toArray( new Candidate[entry.getValue().size()] ) );
+        }
+
+        PsiMethod[] psiConstructors = psiClass.getConstructors();
+        constructors = new Candidate[psiConstructors.length];
+        for( int i = 0; i < psiConstructors.length; i++ )
+        {
+            constructors[i] = new Candidate( psiConstructors[i] );
+        }
+    }
+
+    /**
+     * Method getIndex returns the cached index of all methods of the specified class, including the
+     * inherited ones.
+     *
+     * @param psiClass the class to index
+     * @return ClassMethodIndex the index of the class.
+     */
+    static ClassMethodIndex getIndex( PsiClass psiClass )
+    {
+        return getIndex( psiClass, INDEX_KEY, false );
+    }
+
+    /**
+     * Method getDeclaredIndex returns the cached index of the methods that the specified class declares.
+     *
+     * @param psiClass the class to index
+     * @return ClassMethodIndex the index of the declared methods of the class.
+     */
+    static ClassMethodIndex getDeclaredIndex( PsiClass psiClass )
+    {
+        return getIndex( psiClass, DECLARED_INDEX_KEY, true );
+    }
+
+    /**
+     * Method getIndex returns the index of the specified class that is cached under the specified key.
+     *
+     * @param psiClass the class to index
+     * @param key the key the index is cached under
+     * @param declaredOnly true to index only the methods declared by the class
+     * @return ClassMethodIndex the index of the class.
+     */
+    private static ClassMethodIndex getIndex( final PsiClass psiClass, Key<CachedValue<ClassMethodIndex>> key,
+                                              final boolean declaredOnly )
+    {
+        return CachedValuesManager.getManager( psiClass.getProject() ).getCachedValue(
+                psiClass, key, new CachedValueProvider<ClassMethodIndex>()
+        {
+            /**
+             * Method compute builds the index of the class.
+             * @return the index, valid until the Java structure is modified.
+             */
+            public Result<ClassMethodIndex> compute()
+            {
+                return Result.create( new ClassMethodIndex( psiClass, declaredOnly ),
+                                      PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT );
+            }
+        }, false );
+    }
+
+    /**
+     * Method findMethod returns the method of the indexed class that the specified method overrides or
+     * implements. Methods with the same erased signature are preferred, in the order of getAllMethods;
+     * generic methods are then matched with the type arguments bound by the class of the specified method.
+     *
+     * @param psiMethod the method to find
+     * @return PsiMethod the matching method or null if the class has none.
+     */
+    PsiMethod findMethod( PsiMethod psiMethod )
+    {
+        Candidate[] candidates = methodsByName.get( psiMethod.getName() );
+        if( null == candidates )
+        {
+            return null;
+        }
+        int signatureKey = SignatureKeys.getKey( psiMethod );
+        PsiMethod superMethod = find( candidates, signatureKey );
+        if( null == superMethod )
+        {
+            superMethod = findGeneric( candidates, psiMethod, signatureKey );
+        }
+        return superMethod;
+    }
+
+    /**
+     * Method findConstructor returns the constructor of the indexed class with the same erased parameter
+     * types as the specified constructor.
+     *
+     * @param constructor the constructor to find
+     * @return PsiMethod the matching constructor or null if the class has none.
+     */
+    PsiMethod findConstructor( PsiMethod constructor )
+    {
+        return find( constructors, SignatureKeys.getKey( constructor ) );
+    }
+
+    /**
+     * Method find returns the first candidate with the specified signature key.
+     *
+     * @param candidates the candidates
+     * @param signatureKey the erased signature key
+     * @return PsiMethod the matching method or null if there is none.
+     */
+    private static PsiMethod find( Candidate[] candidates, int signatureKey )
+    {
+        for( Candidate candidate : candidates )
+        {
+            if( candidate.signatureKey == signatureKey )
+            {
+                return candidate.method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method findGeneric returns the first generic candidate whose parameter types, after substituting the
+     * type arguments bound by the class of the specified method, have the specified signature key.
+     *
+     * @param candidates the candidates
+     * @param psiMethod the method to find
+     * @param signatureKey the erased signature key of the method
+     * @return PsiMethod the matching method or null if there is none.
+     */
+    private static PsiMethod findGeneric( Candidate[] candidates, PsiMethod psiMethod, int signatureKey )
+    {
+        PsiClass derivedClass = psiMethod.getContainingClass();
+        int parameterCount = psiMethod.getParameterList().getParametersCount();
+        for( Candidate candidate : candidates )
+        {
+            ProgressManager.checkCanceled();
+            PsiClass superClass = candidate.method.getContainingClass();
+            if( candidate.generic && candidate.parameterCount == parameterCount &&
+                null != derivedClass && null != superClass && derivedClass.isInheritor( superClass, true ) )
+            {
+                PsiSubstitutor substitutor =
+                        TypeConversionUtil.getSuperClassSubstitutor( superClass, derivedClass, PsiSubstitutor.EMPTY );
+                if( SignatureKeys.getKey( candidate.method, substitutor ) == signatureKey )
+                {
+                    return candidate.method;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,155 @@
+package com.perniciouspenguins.ideaz.javadoc.util;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.javadoc.PsiDocComment;
+import com.intellij.psi.javadoc.PsiDocTag;
+import com.intellij.psi.javadoc.PsiDocTagValue;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class DocCommentSummary holds everything the JavaDoc checks need to know about a doc comment: the
+ * names of the tags it contains, the values of its @see, {&#64;link} and {&#64;linkplain} tags, whether it
+ * inherits its documentation, the fingerprint of its text and the range of its description. The summary
+ * is built by walking the comment once and is cached on the comment until it is modified.
+ */
+public final class DocCommentSummary
+{
+    private static final Key<CachedValue<DocCommentSummary>> SUMMARY_KEY = Key.create( "JavaDocManager.docSummary" );
+    private static final String TAG_INHERIT_DOC = "inheritDoc";
+
+    private final Set<String> tagNames = new HashSet<String>();
+    private final List<PsiDocTagValue> referenceValues;
+    private final DocFingerprint fingerprint;
+    private final TextRange descriptionRange;
+
+    /**
+     * Constructor DocCommentSummary summarizes the specified comment.
+     *
+     * @param docComment the comment
+     */
+    private DocCommentSummary( PsiDocComment docComment )
+    {
+        List<PsiDocTagValue> references = null;
+        LinkedList<PsiElement> elements = new LinkedList<PsiElement>();
+        elements.add( docComment );
+        while( !elements.isEmpty() )
+        {
+            PsiElement element = elements.removeFirst();
+            if( element instanceof PsiDocTag )
+            {
+                PsiDocTag docTag = (PsiDocTag) element;
+                String name = docTag.getName();
+                tagNames.add( name );
+                PsiDocTagValue value = docTag.getValueElement();
+                if( null != value && ("see".equals( name ) || "link".equals( name ) || "linkplain".equals( name )) )
+                {
+                    if( null == references )
+                    {
+                        references = new ArrayList<PsiDocTagValue>( 2 );
+                    }
+                    references.add( value );
+                }
+            }
+            // Push the children in reverse so the comment is walked in document order
+            for( PsiElement child = element.getLastChild(); null != child; child = child.getPrevSibling() )
+            {
+                if( child instanceof PsiDocTag || child.getFirstChild() != null )
+                {
+                    elements.addFirst( child );
+                }
+            }
+        }
+        referenceValues = null != references ? references : Collections.<PsiDocTagValue>emptyList();
+        fingerprint = new DocFingerprint( docComment.getText() );
+
+        // The description spans the description elements that contain more than white space
+        int offset = docComment.getTextRange().getStartOffset();
+        int start = -1;
+        int end = -1;
+        for( PsiElement element : docComment.getDescriptionElements() )
+        {
+            if( element.getText().trim().length() > 0 )
+            {
+                TextRange range = element.getTextRange();
+                start = -1 == start ? range.getStartOffset() - offset : start;
+                end = range.getEndOffset() - offset;
+            }
+        }
+        descriptionRange = -1 != start ? new TextRange( start, end ) : TextRange.EMPTY_RANGE;
+    }
+
+    /**
+     * Method of returns the cached summary of the specified comment.
+     *
+     * @param docComment the comment
+     * @return DocCommentSummary the summary of the comment.
+     */
+    public static DocCommentSummary of( final PsiDocComment docComment )
+    {
+        return CachedValuesManager.getManager( docComment.getProject() ).getCachedValue(
+                docComment, SUMMARY_KEY, new CachedValueProvider<DocCommentSummary>()
+        {
+            /**
+             * Method compute walks the comment.
+             * @return the summary, valid until the comment is modified.
+             */
+            public Result<DocCommentSummary> compute()
+            {
+                return Result.create( new DocCommentSummary( docComment ), docComment );
+            }
+        }, false );
+    }
+
+    /**
+     * Method definesInheritDoc determines whether the comment contains the @inheritDoc tag.
+     *
+     * @return boolean true if the comment inherits documentation, false otherwise.
+     */
+    public boolean definesInheritDoc()
+    {
+        return tagNames.contains( TAG_INHERIT_DOC );
+    }
+
+    /**
+     * Method getReferenceValues returns the values of the @see, {&#64;link} and {&#64;linkplain} tags of the
+     * comment, in document order.
+     *
+     * @return List the referenced elements as they appear in the comment.
+     */
+    public List<PsiDocTagValue> getReferenceValues()
+    {
+        return referenceValues;
+    }
+
+    /**
+     * Method getFingerprint returns the fingerprint of the text of the comment.
+     *
+     * @return DocFingerprint the fingerprint.
+     */
+    public DocFingerprint getFingerprint()
+    {
+        return fingerprint;
+    }
+
+    /**
+     * Method getDescriptionRange returns the range of the description, the text before the first block tag,
+     * relative to the start of the comment.
+     *
+     * @return TextRange the range of the description, empty if the comment has no description.
+     */
+    public TextRange getDescriptionRange()
+    {
+        return descriptionRange;
+    }
+}
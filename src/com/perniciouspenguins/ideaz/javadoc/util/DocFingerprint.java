@@ -0,0 +1,173 @@
+package com.perniciouspenguins.ideaz.javadoc.util;
+
+import com.intellij.psi.javadoc.PsiDocComment;
+
+/**
+ * Class DocFingerprint is a 64 bit FNV-1a hash of the text of a JavaDoc comment, computed in a single
+ * pass over the text while normalizing it: leading and trailing white space is stripped from every line
+ * and blank lines are skipped. Two comments that only differ in indentation have the same fingerprint.
+ * <p/>
+ * The fingerprint of a comment is part of its cached {@link DocCommentSummary}. Comparing two comments
+ * compares their hashes and only walks both texts, character by character, when the hashes are equal.
+ */
+public final class DocFingerprint
+{
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String text;
+    private final long hash;
+
+    /**
+     * Constructor DocFingerprint creates the fingerprint of the specified comment text.
+     *
+     * @param text the text of the comment
+     */
+    public DocFingerprint( String text )
+    {
+        this.text = text;
+        this.hash = hash( text );
+    }
+
+    /**
+     * Method of returns the fingerprint of the specified comment from its cached summary.
+     *
+     * @param docComment the comment
+     * @return DocFingerprint the fingerprint of the comment.
+     */
+    public static DocFingerprint of( PsiDocComment docComment )
+    {
+        return DocCommentSummary.of( docComment ).getFingerprint();
+    }
+
+    /**
+     * Method matches determines whether the normalized text of this comment equals that of the specified
+     * comment.
+     *
+     * @param other the fingerprint of the other comment
+     * @return boolean true if both comments are equal apart from white space at the start and end of lines
+     *         and blank lines, false otherwise.
+     */
+    public boolean matches( DocFingerprint other )
+    {
+        return null != other && hash == other.hash && normalizedEquals( text, other.text );
+    }
+
+    /**
+     * Method hash computes the FNV-1a hash of the normalized form of the specified text.
+     *
+     * @param text the text
+     * @return long the 64 bit hash.
+     */
+    public static long hash( CharSequence text )
+    {
+        long hash = FNV_OFFSET_BASIS;
+        NormalizedText normalized = new NormalizedText( text );
+        for( int c = normalized.next(); c >= 0; c = normalized.next() )
+        {
+            hash ^= c;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Method normalizedEquals compares the normalized forms of the specified texts character by character.
+     *
+     * @param textA text A
+     * @param textB text B
+     * @return boolean true if both texts are equal apart from white space at the start and end of lines and
+     *         blank lines, false otherwise.
+     */
+    public static boolean normalizedEquals( CharSequence textA, CharSequence textB )
+    {
+        NormalizedText normalizedA = new NormalizedText( textA );
+        NormalizedText normalizedB = new NormalizedText( textB );
+        int c;
+        do
+        {
+            c = normalizedA.next();
+            if( c != normalizedB.next() )
+            {
+                return false;
+            }
+        }
+        while( c >= 0 );
+        return true;
+    }
+
+    /**
+     * Class NormalizedText reads a text one character at a time with the leading and trailing white space of
+     * every line removed, blank lines skipped and lines separated by a single new line character.
+     */
+    private static final class NormalizedText
+    {
+        private final CharSequence text;
+        private int position = 0;
+        private int lineEnd = 0;
+        private boolean started = false;
+
+        /**
+         * Constructor NormalizedText creates a new NormalizedText instance.
+         *
+         * @param text the text to read
+         */
+        private NormalizedText( CharSequence text )
+        {
+            this.text = text;
+        }
+
+        /**
+         * Method next returns the next character of the normalized text.
+         *
+         * @return int the next character or -1 at the end of the text.
+         */
+        private int next()
+        {
+            if( position < lineEnd )
+            {
+                return text.charAt( position++ );
+            }
+            int length = text.length();
+            int start = position;
+            while( start < length && isWhitespace( text.charAt( start ) ) )
+            {
+                start++;
+            }
+            if( start == length )
+            {
+                position = length;
+                return -1;
+            }
+            int end = start;
+            while( end < length && text.charAt( end ) != '\n' && text.charAt( end ) != '\r' )
+            {
+                end++;
+            }
+            while( isWhitespace( text.charAt( end - 1 ) ) )
+            {
+                end--;
+            }
+            position = start;
+            lineEnd = end;
+            if( started )
+            {
+                return '\n';
+            }
+            started = true;
+            return text.charAt( position++ );
+        }
+
+        /**
+         * Method isWhitespace determines whether the specified character is white space, the same
+         * characters that \s matches in a regular expression.
+         *
+         * @param c the character
+         * @return boolean true if the character is white space, false otherwise.
+         */
+        private static boolean isWhitespace( char c )
+        {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.perniciouspenguins.ideaz.javadoc.util;
+
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.javadoc.PsiDocComment;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Class EffectiveDocResolver determines the JavaDoc that is in effect for a method: its own JavaDoc, or
+ * the effective JavaDoc of its super method when it has none, uses the inheritDoc tag or only refers to
+ * its super method with a see tag. The method whose JavaDoc is in effect is cached for every method along
+ * the chain by the {@link OverrideIndex}, so resolving the chains of all methods in a file costs a constant
+ * amount of work per method.
+ */
+public final class EffectiveDocResolver
+{
+    /** The methods whose effective JavaDoc is being resolved by the current thread, to break cycles **/
+    private static final ThreadLocal<Set<PsiMethod>> resolving = new ThreadLocal<Set<PsiMethod>>()
+    {
+        protected Set<PsiMethod> initialValue()
+        {
+            return new HashSet<PsiMethod>();
+        }
+    };
+
+    /**
+     * Method getEffectiveDoc returns the JavaDoc that is in effect for the specified method.
+     *
+     * @param psiMethod the method
+     * @return PsiDocComment the effective JavaDoc or null if neither the method nor its ancestors define any.
+     */
+    public static PsiDocComment getEffectiveDoc( PsiMethod psiMethod )
+    {
+        PsiMethod documentedMethod = getDocumentedMethod( psiMethod );
+        return null != documentedMethod ? documentedMethod.getDocComment() : null;
+    }
+
+    /**
+     * Method getDocumentedMethod returns the method whose JavaDoc is in effect for the specified method, as
+     * cached by the {@link OverrideIndex} of the project. The chain is followed on every call when the index
+     * is not available.
+     *
+     * @param psiMethod the method
+     * @return PsiMethod the method itself, the ancestor it inherits its JavaDoc from, or null if neither the
+     *         method nor its ancestors define JavaDoc.
+     */
+    public static PsiMethod getDocumentedMethod( PsiMethod psiMethod )
+    {
+        if( !psiMethod.isValid() )
+        {
+            return null;
+        }
+        Set<PsiMethod> inProgress = resolving.get();
+        if( !inProgress.add( psiMethod ) )
+        {
+            // A cyclic hierarchy; the method can only document itself
+            return null != psiMethod.getDocComment() ? psiMethod : null;
+        }
+        try
+        {
+            OverrideIndex overrideIndex = OverrideIndex.getInstance( psiMethod.getProject() );
+            return null != overrideIndex
+                   ? overrideIndex.getDocumentedAncestor( psiMethod )
+                   : findDocumentedMethod( psiMethod );
+        }
+        finally
+        {
+            inProgress.remove( psiMethod );
+        }
+    }
+
+    /**
+     * Method inheritsDoc determines whether the JavaDoc of the specified method defers to that of its super
+     * method, either through the inheritDoc tag or by consisting of nothing but a reference to the super
+     * method.
+     *
+     * @param psiMethod the method with JavaDoc
+     * @param superMethod the super method
+     * @return boolean true if the method inherits the JavaDoc of the super method, false otherwise.
+     */
+    public static boolean inheritsDoc( PsiMethod psiMethod, PsiMethod superMethod )
+    {
+        PsiDocComment docComment = psiMethod.getDocComment();
+        if( null == docComment || null == superMethod )
+        {
+            return false;
+        }
+        if( !PsiUtils.isStatic( psiMethod ) && PsiUtils.definesInheritDocTag( psiMethod ) )
+        {
+            return true;
+        }
+        return DocCommentSummary.of( docComment ).getDescriptionRange().isEmpty() &&
+               PsiUtils.hasReferenceToParentMethod( psiMethod, superMethod );
+    }
+
+    /**
+     * Method findDocumentedMethod follows the inheritance chain of the specified method one step, using the
+     * documented method of its super method.
+     *
+     * @param psiMethod the method
+     * @return PsiMethod the method itself, the ancestor it inherits its JavaDoc from, or null if neither the
+     *         method nor its ancestors define JavaDoc.
+     */
+    static PsiMethod findDocumentedMethod( PsiMethod psiMethod )
+    {
+        PsiMethod self = null != psiMethod.getDocComment() ? psiMethod : null;
+        PsiMethod superMethod = SuperMethodResolver.getSuperMethod( psiMethod );
+        if( null == superMethod || (null != self && !inheritsDoc( psiMethod, superMethod )) )
+        {
+            return self;
+        }
+        PsiMethod inherited = getDocumentedMethod( superMethod );
+        return null != inherited ? inherited : self;
+    }
+
+    /**
+     * Constructor EffectiveDocResolver cannot be called.
+     */
+    private EffectiveDocResolver()
+    {
+    }
+}
@@ -0,0 +1,575 @@
+package com.perniciouspenguins.ideaz.javadoc.util;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.fileEditor.FileEditorManagerAdapter;
+import com.intellij.openapi.fileEditor.FileEditorManagerListener;
+import com.intellij.openapi.fileTypes.StdFileTypes;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ContentIterator;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.startup.StartupManager;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiAnonymousClass;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiCodeBlock;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiField;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiModifier;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.javadoc.PsiDocComment;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class OverrideIndex keeps track of the method that every method overrides or implements, and of its
+ * documented ancestor: the method up the override chain whose JavaDoc is in effect for it. Both are
+ * stored on the method itself, stamped with the hierarchy generation of the project and the generation
+ * of its containing classes. The project generation only changes when a declaration changes that other
+ * classes may depend on; a change to a class that cannot be extended only starts a new generation for
+ * that class. The documented ancestor is also stamped with the JavaDoc generation, which changes with
+ * every JavaDoc comment. Typing inside method bodies, comments or field declarations, or editing files
+ * other than Java files, keeps the super methods valid, and a documented ancestor is resolved again from
+ * the cached super methods. The inspections therefore look up both in constant time.
+ * <p/>
+ * When the project is opened, a background task resolves the methods of all Java files in the source
+ * roots of the project, starting with the files that are open in an editor. The results live on the PSI,
+ * so the index never keeps PSI in memory that IntelliJ would otherwise release; a file whose PSI was
+ * released is indexed again when it is opened in an editor, before highlighting asks for it.
+ */
+public class OverrideIndex implements ProjectComponent
+{
+    private static final Key<Entry> SUPER_METHOD_KEY = Key.create( "JavaDocManager.overrideIndex" );
+    private static final Key<Entry> DOCUMENTED_ANCESTOR_KEY = Key.create( "JavaDocManager.documentedAncestor" );
+    private static final Key<Long> CLASS_GENERATION_KEY = Key.create( "JavaDocManager.classGeneration" );
+
+    private final Project project;
+    private final AtomicLong hierarchyGeneration = new AtomicLong();
+    private final AtomicLong classGeneration = new AtomicLong();
+    private final AtomicLong docGeneration = new AtomicLong();
+    private final HierarchyChangeListener changeListener = new HierarchyChangeListener();
+
+    /**
+     * A method found for a method, valid as long as none of the generations it was resolved in change.
+     */
+    private static final class Entry
+    {
+        private final PsiMethod method;
+        private final long generation;
+        private final long classGeneration;
+        private final long docGeneration;
+
+        /**
+         * Constructor Entry creates a new Entry instance.
+         *
+         * @param method the method that was found or null if there is none
+         * @param generation the hierarchy generation the method was resolved in
+         * @param classGeneration the generation of the containing classes the method was resolved in
+         * @param docGeneration the JavaDoc generation the method was resolved in, 0 if it does not depend on it
+         */
+        private Entry( PsiMethod method, long generation, long classGeneration, long docGeneration )
+        {
+            this.method = method;
+            this.generation = generation;
+            this.classGeneration = classGeneration;
+            this.docGeneration = docGeneration;
+        }
+
+        /**
+         * Method isCurrent determines whether this entry was resolved in the specified generations and the
+         * method it found still exists.
+         *
+         * @param generation the current hierarchy generation
+         * @param classGeneration the current generation of the containing classes
+         * @param docGeneration the current JavaDoc generation, 0 if the entry does not depend on it
+         * @return boolean true if the entry can be used, false if it must be resolved again.
+         */
+        private boolean isCurrent( long generation, long classGeneration, long docGeneration )
+        {
+            return this.generation == generation && this.classGeneration == classGeneration &&
+                   this.docGeneration == docGeneration && (null == method || method.isValid());
+        }
+    }
+
+    /**
+     * Constructor OverrideIndex creates a new OverrideIndex instance.
+     *
+     * @param project the project to index
+     */
+    public OverrideIndex( Project project )
+    {
+        this.project = project;
+    }
+
+    /**
+     * Method getInstance returns the index of the specified project.
+     *
+     * @param project the project
+     * @return OverrideIndex the index of the project or null if the component is not available.
+     */
+    public static OverrideIndex getInstance( Project project )
+    {
+        return project.getComponent( OverrideIndex.class );
+    }
+
+    /**
+     * Method getSuperMethod returns the method that the specified method overrides or implements,
+     * resolving it only if the hierarchy changed since it was last resolved.
+     *
+     * @param psiMethod the method of which the super implementation/definition is requested
+     * @return the superMethod or null if the method does not override or implement another method.
+     */
+    public PsiMethod getSuperMethod( PsiMethod psiMethod )
+    {
+        long generation = hierarchyGeneration.get();
+        long containingGeneration = getClassGeneration( psiMethod.getContainingClass() );
+        Entry entry = psiMethod.getUserData( SUPER_METHOD_KEY );
+        if( null == entry || !entry.isCurrent( generation, containingGeneration, 0 ) )
+        {
+            entry = new Entry( SuperMethodResolver.findSuperMethod( psiMethod ), generation, containingGeneration, 0 );
+            psiMethod.putUserData( SUPER_METHOD_KEY, entry );
+        }
+        return entry.method;
+    }
+
+    /**
+     * Method getDocumentedAncestor returns the method whose JavaDoc is in effect for the specified method,
+     * resolving it only if the hierarchy or any JavaDoc changed since it was last resolved.
+     *
+     * @param psiMethod the method
+     * @return PsiMethod the method itself, the ancestor it inherits its JavaDoc from, or null if neither the
+     *         method nor its ancestors define JavaDoc.
+     * @see EffectiveDocResolver#getDocumentedMethod(PsiMethod)
+     */
+    public PsiMethod getDocumentedAncestor( PsiMethod psiMethod )
+    {
+        long documentation = docGeneration.get();
+        long generation = hierarchyGeneration.get();
+        long containingGeneration = getClassGeneration( psiMethod.getContainingClass() );
+        Entry entry = psiMethod.getUserData( DOCUMENTED_ANCESTOR_KEY );
+        if( null == entry || !entry.isCurrent( generation, containingGeneration, documentation ) )
+        {
+            entry = new Entry( EffectiveDocResolver.findDocumentedMethod( psiMethod ), generation,
+                               containingGeneration, documentation );
+            psiMethod.putUserData( DOCUMENTED_ANCESTOR_KEY, entry );
+        }
+        return entry.method;
+    }
+
+    /**
+     * Method getClassGeneration returns the latest generation of the specified class and the classes that
+     * contain it. Every class generation is unique, so the result changes whenever any of them changes.
+     *
+     * @param psiClass the class
+     * @return long the latest generation or 0 if none of the classes changed since the project was opened.
+     */
+    private static long getClassGeneration( PsiClass psiClass )
+    {
+        long generation = 0;
+        PsiClass aClass = psiClass;
+        while( null != aClass )
+        {
+            Long classGeneration = aClass.getUserData( CLASS_GENERATION_KEY );
+            if( null != classGeneration && classGeneration > generation )
+            {
+                generation = classGeneration;
+            }
+            aClass = PsiTreeUtil.getParentOfType( aClass, PsiClass.class );
+        }
+        return generation;
+    }
+
+    /**
+     * @see ProjectComponent#projectOpened()
+     */
+    public void projectOpened()
+    {
+        PsiManager.getInstance( project ).addPsiTreeChangeListener( changeListener );
+        project.getMessageBus().connect( project ).subscribe( FileEditorManagerListener.FILE_EDITOR_MANAGER,
+                                                             new FileEditorManagerAdapter()
+        {
+            /**
+             * Method fileOpened indexes the file that was opened.
+             * @param source the file editor manager
+             * @param file the file that was opened
+             */
+            public void fileOpened( FileEditorManager source, VirtualFile file )
+            {
+                index( Arrays.asList( file ) );
+            }
+        } );
+        StartupManager.getInstance( project ).runWhenProjectIsInitialized( new Runnable()
+        {
+            /**
+             * Method run indexes the project, starting with the files that were opened with the project.
+             */
+            public void run()
+            {
+                indexProject();
+            }
+        } );
+    }
+
+    /**
+     * @see ProjectComponent#projectClosed()
+     */
+    public void projectClosed()
+    {
+        PsiManager.getInstance( project ).removePsiTreeChangeListener( changeListener );
+        SignatureKeys.release( project );
+    }
+
+    /**
+     * Method indexProject resolves the methods of all Java files in the source roots of the project in a
+     * background task. The files that are open in an editor are indexed first.
+     */
+    private void indexProject()
+    {
+        if( project.isDisposed() )
+        {
+            return;
+        }
+        ProgressManager.getInstance().run( new Task.Backgroundable( project, "Indexing overridden methods", true )
+        {
+            /**
+             * Method run collects the Java source files of the project and indexes them.
+             * @param indicator the progress indicator of the task
+             */
+            public void run( @NotNull ProgressIndicator indicator )
+            {
+                List<VirtualFile> files = new ArrayList<VirtualFile>();
+                files.addAll( Arrays.asList( FileEditorManager.getInstance( project ).getOpenFiles() ) );
+                files.addAll( getJavaSourceFiles() );
+                indexFiles( files, indicator );
+            }
+        } );
+    }
+
+    /**
+     * Method getJavaSourceFiles returns the Java files in the source roots of the project.
+     *
+     * @return List the Java source files.
+     */
+    private List<VirtualFile> getJavaSourceFiles()
+    {
+        final List<VirtualFile> files = new ArrayList<VirtualFile>();
+        ApplicationManager.getApplication().runReadAction( new Runnable()
+        {
+            /**
+             * Method run walks the content of the project.
+             */
+            public void run()
+            {
+                if( project.isDisposed() )
+                {
+                    return;
+                }
+                final ProjectFileIndex fileIndex = ProjectRootManager.getInstance( project ).getFileIndex();
+                fileIndex.iterateContent( new ContentIterator()
+                {
+                    /**
+                     * Method processFile collects the file if it is a Java source file.
+                     * @param file the file or folder in the content of the project
+                     * @return true to continue with the next file.
+                     */
+                    public boolean processFile( VirtualFile file )
+                    {
+                        if( !file.isDirectory() && StdFileTypes.JAVA == file.getFileType() &&
+                            fileIndex.isInSourceContent( file ) )
+                        {
+                            files.add( file );
+                        }
+                        return true;
+                    }
+                } );
+            }
+        } );
+        return files;
+    }
+
+    /**
+     * Method index resolves the methods of the specified files in a background task.
+     *
+     * @param files the files to index
+     */
+    private void index( final Collection<VirtualFile> files )
+    {
+        if( files.isEmpty() || project.isDisposed() )
+        {
+            return;
+        }
+        ProgressManager.getInstance().run( new Task.Backgroundable( project, "Indexing overridden methods", true )
+        {
+            /**
+             * Method run indexes the files.
+             * @param indicator the progress indicator of the task
+             */
+            public void run( @NotNull ProgressIndicator indicator )
+            {
+                indexFiles( files, indicator );
+            }
+        } );
+    }
+
+    /**
+     * Method indexFiles resolves the super methods and documented ancestors of all methods in the specified
+     * files, each file in its own read action so that write actions are not held up.
+     *
+     * @param files the files to index
+     * @param indicator the progress indicator of the task
+     */
+    private void indexFiles( Collection<VirtualFile> files, final ProgressIndicator indicator )
+    {
+        int indexed = 0;
+        for( final VirtualFile file : files )
+        {
+            indicator.checkCanceled();
+            indicator.setFraction( (double) indexed++ / files.size() );
+            ApplicationManager.getApplication().runReadAction( new Runnable()
+            {
+                /**
+                 * Method run resolves the methods of one file.
+                 */
+                public void run()
+                {
+                    if( !project.isDisposed() && file.isValid() )
+                    {
+                        PsiFile psiFile = PsiManager.getInstance( project ).findFile( file );
+                        if( psiFile instanceof PsiJavaFile )
+                        {
+                            indexClasses( ((PsiJavaFile) psiFile).getClasses(), indicator );
+                        }
+                    }
+                }
+            } );
+        }
+    }
+
+    /**
+     * Method indexClasses resolves the super methods and documented ancestors of the methods of the
+     * specified classes and their inner classes.
+     *
+     * @param classes the classes to index
+     * @param indicator the progress indicator of the task
+     */
+    private void indexClasses( PsiClass[] classes, ProgressIndicator indicator )
+    {
+        for( PsiClass psiClass : classes )
+        {
+            for( PsiMethod psiMethod : psiClass.getMethods() )
+            {
+                indicator.checkCanceled();
+                getSuperMethod( psiMethod );
+                getDocumentedAncestor( psiMethod );
+            }
+            indexClasses( psiClass.getInnerClasses(), indicator );
+        }
+    }
+
+    /**
+     * @see ProjectComponent#initComponent()
+     */
+    public void initComponent()
+    {
+    }
+
+    /**
+     * @see ProjectComponent#disposeComponent()
+     */
+    public void disposeComponent()
+    {
+    }
+
+    /**
+     * @see ProjectComponent#getComponentName()
+     */
+    @NotNull
+    public String getComponentName()
+    {
+        return "JavaDocManager.OverrideIndex";
+    }
+
+    /**
+     * Class HierarchyChangeListener starts a new generation whenever a change may affect a class or method
+     * declaration. Changes inside method bodies, comments and field declarations and changes to files
+     * other than Java files are ignored. A change to a class that no other class can depend on only starts
+     * a new generation for that class. Changes to JavaDoc comments start a new JavaDoc generation.
+     */
+    private final class HierarchyChangeListener extends PsiTreeChangeAdapter
+    {
+        /**
+         * @see PsiTreeChangeAdapter#childAdded(PsiTreeChangeEvent)
+         */
+        public void childAdded( PsiTreeChangeEvent event )
+        {
+            treeChanged( event );
+        }
+
+        /**
+         * @see PsiTreeChangeAdapter#childRemoved(PsiTreeChangeEvent)
+         */
+        public void childRemoved( PsiTreeChangeEvent event )
+        {
+            treeChanged( event );
+        }
+
+        /**
+         * @see PsiTreeChangeAdapter#childReplaced(PsiTreeChangeEvent)
+         */
+        public void childReplaced( PsiTreeChangeEvent event )
+        {
+            treeChanged( event );
+        }
+
+        /**
+         * @see PsiTreeChangeAdapter#childMoved(PsiTreeChangeEvent)
+         */
+        public void childMoved( PsiTreeChangeEvent event )
+        {
+            treeChanged( event );
+        }
+
+        /**
+         * @see PsiTreeChangeAdapter#childrenChanged(PsiTreeChangeEvent)
+         */
+        public void childrenChanged( PsiTreeChangeEvent event )
+        {
+            treeChanged( event );
+        }
+
+        /**
+         * Method propertyChanged starts a new hierarchy generation unless only the writable status or a
+         * property of a file other than a Java file changed.
+         *
+         * @param event the change event
+         */
+        public void propertyChanged( PsiTreeChangeEvent event )
+        {
+            PsiElement element = event.getElement();
+            if( !PsiTreeChangeEvent.PROP_WRITABLE.equals( event.getPropertyName() ) &&
+                !(element instanceof PsiFile && !(element instanceof PsiJavaFile)) )
+            {
+                hierarchyGeneration.incrementAndGet();
+            }
+        }
+
+        /**
+         * Method treeChanged starts a new JavaDoc generation when the change affects a JavaDoc comment, and
+         * a new hierarchy or class generation unless the change is inside a method body, a comment or a field
+         * declaration. Changes in files other than Java files are ignored. Code blocks of anonymous classes
+         * are handled by looking for the nearest class first.
+         *
+         * @param event the change event
+         */
+        private void treeChanged( PsiTreeChangeEvent event )
+        {
+            if( !(event.getFile() instanceof PsiJavaFile) )
+            {
+                return;
+            }
+            if( changesJavaDoc( event ) )
+            {
+                docGeneration.incrementAndGet();
+            }
+            if( changesTriviaOnly( event ) )
+            {
+                return;
+            }
+            PsiElement parent = event.getParent();
+            PsiElement scope = null != parent
+                               ? PsiTreeUtil.getNonStrictParentOfType( parent, PsiCodeBlock.class, PsiComment.class,
+                                                                       PsiField.class, PsiClass.class )
+                               : null;
+            if( scope instanceof PsiCodeBlock || scope instanceof PsiComment || scope instanceof PsiField )
+            {
+                return;
+            }
+            if( scope instanceof PsiClass && !hasDependents( (PsiClass) scope ) )
+            {
+                scope.putUserData( CLASS_GENERATION_KEY, classGeneration.incrementAndGet() );
+            }
+            else
+            {
+                hierarchyGeneration.incrementAndGet();
+            }
+        }
+
+        /**
+         * Method changesJavaDoc determines whether the change adds, removes or replaces a JavaDoc comment or
+         * happens inside one.
+         *
+         * @param event the change event
+         * @return boolean true if the change may affect the JavaDoc of a member, false otherwise.
+         */
+        private boolean changesJavaDoc( PsiTreeChangeEvent event )
+        {
+            for( PsiElement child : new PsiElement[]{ event.getChild(), event.getOldChild(), event.getNewChild() } )
+            {
+                if( child instanceof PsiDocComment )
+                {
+                    return true;
+                }
+            }
+            PsiElement parent = event.getParent();
+            return null != parent && null != PsiTreeUtil.getParentOfType( parent, PsiDocComment.class, false );
+        }
+
+        /**
+         * Method changesTriviaOnly determines whether the elements that were added, removed or replaced are
+         * all white space, comments or field declarations.
+         *
+         * @param event the change event
+         * @return boolean true if the change cannot affect a class or method declaration, false otherwise.
+         */
+        private boolean changesTriviaOnly( PsiTreeChangeEvent event )
+        {
+            boolean changed = false;
+            for( PsiElement child : new PsiElement[]{ event.getChild(), event.getOldChild(), event.getNewChild() } )
+            {
+                if( null != child )
+                {
+                    if( !(child instanceof PsiWhiteSpace || child instanceof PsiComment || child instanceof PsiField) )
+                    {
+                        return false;
+                    }
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * Method hasDependents determines whether the super methods of other classes may depend on the
+         * declarations of the specified class. Inner classes may be extended elsewhere and resolve their
+         * types through the class, so only anonymous classes and final classes without inner classes are
+         * independent.
+         *
+         * @param psiClass the class
+         * @return boolean false if the class is anonymous or final without inner classes, true otherwise.
+         */
+        private boolean hasDependents( PsiClass psiClass )
+        {
+            return !(psiClass instanceof PsiAnonymousClass) &&
+                   !(psiClass.hasModifierProperty( PsiModifier.FINAL ) && 0 == psiClass.getInnerClasses().length);
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package com.perniciouspenguins.ideaz.javadoc.util;
 
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.*;
 import com.intellij.psi.javadoc.PsiDocComment;
+import com.intellij.psi.javadoc.PsiDocTagValue;
 import com.intellij.psi.javadoc.PsiDocToken;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.IncorrectOperationException;
 import com.perniciouspenguins.ideaz.javadoc.inspections.ui.JavaDocSyncMethodOptionsPanel;
-import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Utility class for Psi operations.
@@ -22,8 +34,15 @@ public final class PsiUtils
 {
     /** Field log: logger for this class **/
     private static final Logger log = Logger.getInstance( "JavaDocManager" );
-    private static final String TOKEN_INHERIT_DOC = "@inheritDoc";
     private static final String PSI_MODIFIER_STATIC = "static";
+    private static final Key<CachedValue<PsiClass[]>> SUPER_INTERFACES_KEY =
+            Key.create( "JavaDocManager.superInterfaces" );
+
+    /** Access flags, in the order of JavaDocSyncMethodOptionsPanel.detectionLevels **/
+    public static final int ACCESS_PUBLIC = 1;
+    public static final int ACCESS_PROTECTED = 1 << 1;
+    public static final int ACCESS_PACKAGE_LOCAL = 1 << 2;
+    public static final int ACCESS_PRIVATE = 1 << 3;
 
     /**
      * Method to retrieve the package name of the specified class.
@@ -50,10 +69,8 @@ public final class PsiUtils
 
     public static boolean docsAreEqual( PsiDocComment psiMethod, PsiDocComment superMethod )
     {
-        String methodComment = psiMethod.getText().replaceAll( "(?m)^\\s*", "" ).replaceAll("(?m)\\s*$","");
-        String parentComment = superMethod.getText().replaceAll( "(?m)^\\s*", "" ).replaceAll("(?m)\\s*$","");
-
-        return StringUtils.equals( methodComment, parentComment );
+        return DocCommentSummary.of( psiMethod ).getFingerprint().matches(
+                DocCommentSummary.of( superMethod ).getFingerprint() );
     }
 
     /**
@@ -65,34 +82,102 @@ public final class PsiUtils
      */
     public static boolean hasReferenceToParentMethod( PsiMethod psiMethod, PsiMethod superMethod )
     {
-        boolean isReference = false;
-        if( null != superMethod )
+        if( null == superMethod )
+        {
+            return false;
+        }
+        PsiDocComment docComment = psiMethod.getDocComment();
+        if( null == docComment )
+        {
+            return false;
+        }
+        for( PsiDocTagValue value : DocCommentSummary.of( docComment ).getReferenceValues() )
         {
-            PsiComment psiComment = psiMethod.getDocComment();
-            if( null != psiComment )
+            if( referencesMethod( value, psiMethod, superMethod ) )
             {
-                String comment = psiComment.getText();
-                int startIndex = comment.indexOf( "@see" );
-                if( startIndex != -1 )
-                {
-                    String pattern = generateReference( psiMethod, superMethod, true );
+                return true;
+            }
+        }
+        return false;
+    }
 
-                    int patternEnd = comment.indexOf( ")", startIndex ) + 1;
-                    if( patternEnd < startIndex )
-                    {
-                        patternEnd = startIndex;
-                    }
+    /**
+     * Method referencesMethod determines whether the specified tag value refers to the super method. The
+     * value is resolved when possible; otherwise its text is compared with the simple and the qualified
+     * reference to the super method, ignoring white space.
+     *
+     * @param value the value of the tag, may be null
+     * @param psiMethod the method defining the tag
+     * @param superMethod the parent method that is possibly referenced
+     * @return boolean true if the value refers to the super method, false otherwise.
+     */
+    private static boolean referencesMethod( PsiDocTagValue value, PsiMethod psiMethod, PsiMethod superMethod )
+    {
+        if( null == value )
+        {
+            return false;
+        }
+        PsiReference reference = value.getReference();
+        PsiElement target = null != reference ? reference.resolve() : null;
+        if( null != target )
+        {
+            return psiMethod.getManager().areElementsEquivalent( target, superMethod );
+        }
 
-                    String thisReference = comment.substring( startIndex, patternEnd );
+        PsiClass superClass = superMethod.getContainingClass();
+        if( null == superClass )
+        {
+            return false;
+        }
+        String valueText = stripWhitespace( value.getText() );
+        String memberReference = "#" + superMethod.getName() + stripWhitespace( getParameterTypes( superMethod ) );
+        String qualifiedName = superClass.getQualifiedName();
+        return valueText.equals( superClass.getName() + memberReference ) ||
+               (null != qualifiedName && valueText.equals( qualifiedName + memberReference ));
+    }
 
-                    if( thisReference.matches( pattern ) )
-                    {
-                        isReference = true;
-                    }
-                }
+    /**
+     * Method getParameterTypes returns the parameter types of the specified method as they are written,
+     * between parentheses.
+     *
+     * @param psiMethod the method
+     * @return String the parameter types, separated by commas.
+     */
+    private static String getParameterTypes( PsiMethod psiMethod )
+    {
+        StringBuilder sb = new StringBuilder( "(" );
+        PsiParameter[] parameters = psiMethod.getParameterList().getParameters();
+        for( int i = 0; i < parameters.length; i++ )
+        {
+            PsiTypeElement typeElement = parameters[i].getTypeElement();
+            String typeText = null != typeElement ? typeElement.getText() : parameters[i].getType().getPresentableText();
+            sb.append( typeText );
+            if( i < parameters.length - 1 )
+            {
+                sb.append( "," );
+            }
+        }
+        return sb.append( ")" ).toString();
+    }
+
+    /**
+     * Method stripWhitespace removes all white space from the specified text.
+     *
+     * @param text the text
+     * @return String the text without white space.
+     */
+    private static String stripWhitespace( String text )
+    {
+        StringBuilder sb = new StringBuilder( text.length() );
+        for( int i = 0; i < text.length(); i++ )
+        {
+            char c = text.charAt( i );
+            if( !Character.isWhitespace( c ) )
+            {
+                sb.append( c );
             }
         }
-        return isReference;
+        return sb.toString();
     }
 
     /**
@@ -128,60 +213,7 @@ public final class PsiUtils
     public static boolean definesInheritDocTag( PsiMethod method )
     {
         PsiDocComment docComment = method.getDocComment();
-        return null != docComment && docComment.getText().indexOf( TOKEN_INHERIT_DOC ) != -1;
-    }
-
-    /**
-     * Method to generate a JavaDoc reference based on the method and it's parent method.
-     * @param method the method that possibly defines a reference to the parent method
-     * @param superMethod the parent method that is being referenced
-     * @param isRegExp flag to indicate whether the reference should be a regular expression or not
-     * @return the JavaDoc reference based on the two methods
-     */
-    public static String generateReference( PsiMethod method, PsiMethod superMethod, boolean isRegExp )
-    {
-        StringBuffer qualifiedReference = new StringBuffer();
-        if( isRegExp )
-        {
-            qualifiedReference.append( "^" );
-        }
-        qualifiedReference.append( "@see " );
-
-        PsiClass superClass = superMethod.getContainingClass();
-        String superPackageName = PsiUtils.getPackage( superClass );
-        String packageName = PsiUtils.getPackage( method.getContainingClass() );
-
-        if( isRegExp )
-        {
-            qualifiedReference
-                    .append( "(" )
-                    .append( "(?!" )  // Package not present
-                    .append( superPackageName ).append( "." )
-                    .append( ")" )
-                    .append( "|" )    // or
-                    .append( "(?:" )  // Package is present
-                    .append( superPackageName ).append( "." )
-                    .append( ")" )
-                    .append( ")" );
-        }
-        else if( !packageName.equals( superPackageName ) )
-        {
-            qualifiedReference.append( superPackageName ).append( "." );
-        }
-        qualifiedReference.append( superClass.getName() ).append( "#" );
-
-        String superMethodSignature = getSignature( superMethod )
-                .replaceAll( "\\(", "\\\\(" )
-                .replaceAll( "\\)", "\\\\)" )
-                .replaceAll( " ", "[\\\\s]*" );
-        qualifiedReference.append( superMethod.getName() ).append( superMethodSignature );
-
-        String reference = qualifiedReference.toString();
-        if( isRegExp )
-        {
-            reference = reference.replaceAll( " ", "[\\\\s]+" );
-        }
-        return reference;
+        return null != docComment && DocCommentSummary.of( docComment ).definesInheritDoc();
     }
 
     /**
@@ -391,7 +423,8 @@ public final class PsiUtils
     }
 
     /**
-     * Method to find the specified psiMethod in the parent class/interface
+     * Method to find the specified psiMethod in the parent class/interface. The result is cached until
+     * the PSI is modified.
      * @param psiMethod the method of which the super implementation/definition is requested
      * @return the superMethod or null if the direct super class/interface (if available) does not
      * define the specified method or is the containing class of the method does not extend or
@@ -399,19 +432,12 @@ public final class PsiUtils
      */
     public static PsiMethod getSuperMethod( PsiMethod psiMethod )
     {
-        if( null != psiMethod )
-        {
-            PsiClass containingClass = psiMethod.getContainingClass();
-            if( null != containingClass )
-            {
-                return checkParents( containingClass.getSuperClass(), psiMethod );
-            }
-        }
-        return null;
+        return SuperMethodResolver.getSuperMethod( psiMethod );
     }
 
     /**
-     * Method to search the specified method in super classes or implemented interfaces
+     * Method to search the specified method in super classes or implemented interfaces. A method whose name
+     * none of the ancestors of its class declares is ruled out without walking the hierarchy at all.
      *
      * @param superClass the superClass to check for the occurrence of the specified method if not null.
      * @param psiMethod the psi method to find in the super class or implemented interface
@@ -419,17 +445,24 @@ public final class PsiUtils
      */
     public static PsiMethod checkParents( PsiClass superClass, PsiMethod psiMethod )
     {
-        PsiMethod superMethod = null;
+        PsiClass containingClass = psiMethod.getContainingClass();
+        // Constructors are exempt from the name filter, they match a super constructor by their parameters
+        // and never by name
+        if( !psiMethod.isConstructor() &&
+            !AncestorMethodNames.getInstance( containingClass ).mayDeclare( psiMethod.getName() ) )
+        {
+            return null;
+        }
 
+        PsiMethod superMethod = null;
         if( null != superClass )
         {
             superMethod = checkClassHierarchy( psiMethod, superClass );
         }
 
-        if( null == superMethod )
+        // Constructors never match a method of an interface
+        if( null == superMethod && !psiMethod.isConstructor() )
         {
-            PsiClass containingClass = psiMethod.getContainingClass();
-
             PsiReferenceList referenceList;
             if( containingClass.isInterface() )
             {
@@ -441,128 +474,130 @@ public final class PsiUtils
             }
             if( null != referenceList )
             {
-                PsiClassType[] interfaceTypes = referenceList.getReferencedTypes();
-                for( int i = 0; superMethod == null && i < interfaceTypes.length; i++ )
-                {
-                    PsiClassType interfaceType = interfaceTypes[i];
-                    PsiClass anInterface = interfaceType.resolve();
-                    if( null != anInterface )
-                    {
-                        superMethod = checkInterfaceHierarchy( psiMethod, anInterface );
-                    }
-                }
+                superMethod = checkInterfaceHierarchy( psiMethod, resolve( referenceList.getReferencedTypes() ) );
             }
         }
         return superMethod;
     }
 
     /**
-     * Method to find the specified method in the implemented interface hierarchy of the specified
-     * class.
+     * Method to find the specified method in the specified interfaces and the interfaces they extend.
+     * The interfaces are searched depth first, in declaration order, and every interface is searched only
+     * once, even if it is reached through several paths. Each interface is searched through the index of
+     * the methods it declares, so the cost is linear in the size of the interface hierarchy.
      * @param psiMethod the method to find
-     * @param containingClass the interface possibly defining the method
+     * @param interfaces the interfaces possibly defining the method
      * @return the method definition or null if not found.
      */
-    private static PsiMethod checkInterfaceHierarchy( PsiMethod psiMethod, PsiClass containingClass )
+    private static PsiMethod checkInterfaceHierarchy( PsiMethod psiMethod, PsiClass[] interfaces )
     {
-        PsiMethod superMethod = null;
-        if( null != containingClass )
+        Set<PsiClass> visited = new HashSet<PsiClass>();
+        LinkedList<PsiClass> stack = new LinkedList<PsiClass>();
+        pushAll( stack, interfaces );
+        while( !stack.isEmpty() )
         {
-            // First check if the containing class defines the method
-            superMethod = containingClass.findMethodBySignature( psiMethod, false );
-
-            // If not, go up in the inhertance tree
-            if( superMethod == null )
+            ProgressManager.checkCanceled();
+            PsiClass anInterface = stack.removeFirst();
+            if( visited.add( anInterface ) )
             {
-                PsiReferenceList superExtendsList = containingClass.getExtendsList();
-                if( superExtendsList != null && superExtendsList.getReferencedTypes().length > 0 )
+                // First check if the interface defines the method
+                PsiMethod superMethod = ClassMethodIndex.getDeclaredIndex( anInterface ).findMethod( psiMethod );
+                if( null != superMethod )
                 {
-                    for( int j = 0; superMethod == null && j < superExtendsList.getReferencedTypes().length; j++ )
-                    {
-                        PsiClassType psiClassType = superExtendsList.getReferencedTypes()[j];
-                        PsiClass psiClass = psiClassType.resolve();
-                        superMethod = checkInterfaceHierarchy( psiMethod, psiClass );
-                    }
+                    return superMethod;
                 }
+                // If not, go up in the inhertance tree
+                pushAll( stack, getSuperInterfaces( anInterface ) );
             }
         }
-        return superMethod;
+        return null;
     }
 
     /**
-     * Method to find the specified method in the extended class hierarchy of the specified
-     * class.
-     * @param psiMethod the method to find
-     * @param superClass the class possibly defining the method
-     * @return the method definition or null if not found.
+     * Method pushAll pushes the specified classes on the stack, so the first class is on top.
+     * @param stack the stack of classes still to search
+     * @param classes the classes to push
      */
-    private static PsiMethod checkClassHierarchy( PsiMethod psiMethod, PsiClass superClass )
+    private static void pushAll( LinkedList<PsiClass> stack, PsiClass[] classes )
     {
-        PsiMethod superMethod = null;
-        if( !psiMethod.isConstructor() )
+        for( int i = classes.length - 1; i >= 0; i-- )
         {
-//            superMethod = superClass.findMethodBySignature(psiMethod, true);  // We cannot trust this method!
-            PsiMethod[] psiMethods = superClass.getAllMethods();
-            for( int i = 0; superMethod == null && i < psiMethods.length; i++ )
-            {
-                if( psiMethod.getName().equals( psiMethods[i].getName() ) &&
-                    methodsMatchInParameterTypes( psiMethod, psiMethods[i] ) )
-                {
-                    superMethod = psiMethods[i];
-                }
-            }
+            stack.addFirst( classes[i] );
         }
-        else
+    }
+
+    /**
+     * Method getSuperInterfaces returns the resolved interfaces that the specified interface extends. The
+     * result is cached on the interface until the Java structure of the project changes.
+     * @param anInterface the interface
+     * @return PsiClass[] the interfaces that could be resolved, in declaration order.
+     */
+    private static PsiClass[] getSuperInterfaces( final PsiClass anInterface )
+    {
+        return CachedValuesManager.getManager( anInterface.getProject() ).getCachedValue(
+                anInterface, SUPER_INTERFACES_KEY, new CachedValueProvider<PsiClass[]>()
         {
-            PsiMethod[] superConstructors = superClass.getConstructors();
-            for( int i = 0; superMethod == null && i < superConstructors.length; i++ )
+            /**
+             * Method compute resolves the extends list of the interface.
+             * @return the resolved interfaces, valid until the Java structure is modified.
+             */
+            public Result<PsiClass[]> compute()
             {
-                PsiMethod superConstructor = superConstructors[i];
-                if( psiMethod.isConstructor() && superConstructor.isConstructor() &&
-                    methodsMatchInParameterTypes( psiMethod, superConstructor ) )
-                {
-                    superMethod = superConstructor;
-                }
+                PsiReferenceList extendsList = anInterface.getExtendsList();
+                PsiClass[] superInterfaces = null != extendsList ? resolve( extendsList.getReferencedTypes() )
+                                                                 : PsiClass.EMPTY_ARRAY;
+                return Result.create( superInterfaces, PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT );
             }
-        }
+        }, false );
+    }
 
-        if( null == superMethod && null != superClass.getSuperClass() )
+    /**
+     * Method resolve resolves the specified class types, skipping the ones that cannot be resolved.
+     * @param classTypes the class types to resolve
+     * @return PsiClass[] the resolved classes, in the order of the specified types.
+     */
+    private static PsiClass[] resolve( PsiClassType[] classTypes )
+    {
+        List<PsiClass> classes = new ArrayList<PsiClass>( classTypes.length );
+        for( PsiClassType classType : classTypes )
         {
-            superMethod = checkParents( superClass.getSuperClass(), psiMethod );
+            PsiClass psiClass = classType.resolve();
+            if( null != psiClass )
+            {
+                classes.add( psiClass );
+            }
         }
-        return superMethod;
+        return classes.toArray( new PsiClass[classes.size()] );
     }
 
-
     /**
-     * Method to determine whether two methods, based soley on their parameter
-     * types are identical.
-     *
-     * @param methodA psiMethod A
-     * @param methodB psiMethod B
-     * @return true if the two methods define exactly the same parameter types
-     * and in the same order, false otherwise. Note that this methodA does not take the methodA names
-     * into account and should therefor be only used for constructors.
+     * Method to find the specified method in the extended class hierarchy of the specified
+     * class. Methods are looked up by name and erased signature in the method index of the class, which
+     * already covers the methods of all its super classes; constructors are looked up class by class.
+     * @param psiMethod the method to find
+     * @param superClass the class possibly defining the method
+     * @return the method definition or null if not found.
      */
-    private static boolean methodsMatchInParameterTypes( PsiMethod methodA, PsiMethod methodB )
+    private static PsiMethod checkClassHierarchy( PsiMethod psiMethod, PsiClass superClass )
     {
-        PsiParameterList parameterListA = methodA.getParameterList();
-        PsiParameterList parameterListB = methodB.getParameterList();
+        if( !psiMethod.isConstructor() )
+        {
+//            superMethod = superClass.findMethodBySignature(psiMethod, true);  // We cannot trust this method!
+            return ClassMethodIndex.getIndex( superClass ).findMethod( psiMethod );
+        }
 
-        PsiParameter[] parametersOfA = parameterListA.getParameters();
-        PsiParameter[] parametersOfB = parameterListB.getParameters();
-        if( parametersOfA.length == parametersOfB.length )
+        Set<PsiClass> visited = new HashSet<PsiClass>();
+        for( PsiClass psiClass = superClass; null != psiClass && visited.add( psiClass );
+             psiClass = psiClass.getSuperClass() )
         {
-            for( int i = 0; i < parametersOfA.length; i++ )
+            ProgressManager.checkCanceled();
+            PsiMethod superConstructor = ClassMethodIndex.getIndex( psiClass ).findConstructor( psiMethod );
+            if( null != superConstructor )
             {
-                if( !parametersOfA[i].getType().equals( parametersOfB[i].getType() ) )
-                {
-                    return false;
-                }
+                return superConstructor;
             }
-            return true;
         }
-        return false;
+        return null;
     }
 
     /**
@@ -610,7 +645,7 @@ public final class PsiUtils
 
     /**
      * Method accessModifierLevelInRange compares the selected access modifier level with the one declared
-     * by the specified method. If the selected level is higher than the modifier of the method, false is returned/
+     * by the specified method. If the selected level is higher than the modifier of the method, false is returned.
      *
      * @param modifierList of type PsiModifierList
      * @param methodDetectionLevel the configured level
@@ -618,35 +653,71 @@ public final class PsiUtils
      */
     public static boolean accessModifierLevelInRange( PsiModifierList modifierList, String methodDetectionLevel )
     {
-        String declaredModifier = modifierList.getText();
-        if( null == declaredModifier || "".equals( declaredModifier ) )
-        {
-            declaredModifier = "default";
-        }
+        return accessLevelInMask( modifierList, getAccessMask( methodDetectionLevel ) );
+    }
 
-        boolean found = false;
-        int declaredLevel = 0;
-        for( ; !found && declaredLevel < JavaDocSyncMethodOptionsPanel.detectionLevels.length; declaredLevel++ )
+    /**
+     * Method getAccessMask returns the mask of all access levels that are within the range of the specified
+     * detection level, from public up to and including the detection level itself. An unknown level selects
+     * all access levels.
+     *
+     * @param methodDetectionLevel the configured level, one of JavaDocSyncMethodOptionsPanel.detectionLevels
+     * @return int the mask of the ACCESS_* flags in range.
+     */
+    public static int getAccessMask( String methodDetectionLevel )
+    {
+        int mask = 0;
+        String[] detectionLevels = JavaDocSyncMethodOptionsPanel.detectionLevels;
+        for( int level = 0; level < detectionLevels.length; level++ )
         {
-            String detectionLevel = JavaDocSyncMethodOptionsPanel.detectionLevels[declaredLevel];
-            if( detectionLevel.equals( declaredModifier ) )
+            mask |= 1 << level;
+            if( detectionLevels[level].equals( methodDetectionLevel ) )
             {
-                found = true;
+                return mask;
             }
         }
+        return mask;
+    }
 
-        found = false;
-        int selectedLevel = 0;
-        for( ; !found && selectedLevel < JavaDocSyncMethodOptionsPanel.detectionLevels.length; selectedLevel++ )
+    /**
+     * Method accessLevelInMask determines whether the access level of the specified modifier list is in the
+     * specified mask.
+     *
+     * @param modifierList the modifier list, null for package local access
+     * @param accessMask the mask of ACCESS_* flags, see getAccessMask
+     * @return boolean true if the access level is in the mask, false otherwise.
+     */
+    public static boolean accessLevelInMask( PsiModifierList modifierList, int accessMask )
+    {
+        return (getAccessFlag( modifierList ) & accessMask) != 0;
+    }
+
+    /**
+     * Method getAccessFlag returns the ACCESS_* flag of the access level of the specified modifier list.
+     * Implicit modifiers, like the public access of interface methods, are taken into account.
+     *
+     * @param modifierList the modifier list, null for package local access
+     * @return int the access flag.
+     */
+    private static int getAccessFlag( PsiModifierList modifierList )
+    {
+        if( null == modifierList )
         {
-            String detectionLevel = JavaDocSyncMethodOptionsPanel.detectionLevels[selectedLevel];
-            if( detectionLevel.equals( methodDetectionLevel ) )
-            {
-                found = true;
-            }
+            return ACCESS_PACKAGE_LOCAL;
         }
-
-        return declaredLevel <= selectedLevel;
+        if( modifierList.hasModifierProperty( PsiModifier.PUBLIC ) )
+        {
+            return ACCESS_PUBLIC;
+        }
+        if( modifierList.hasModifierProperty( PsiModifier.PROTECTED ) )
+        {
+            return ACCESS_PROTECTED;
+        }
+        if( modifierList.hasModifierProperty( PsiModifier.PRIVATE ) )
+        {
+            return ACCESS_PRIVATE;
+        }
+        return ACCESS_PACKAGE_LOCAL;
     }
 
     /**
@@ -666,6 +737,7 @@ public final class PsiUtils
         PsiField[] allFields = containingClass.getAllFields();
         for( PsiField field : allFields )
         {
+            ProgressManager.checkCanceled();
             if( propertyName.equals( field.getName() ) )
             {
                 PsiDocComment comment = field.getDocComment();
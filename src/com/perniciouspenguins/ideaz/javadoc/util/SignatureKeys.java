@@ -0,0 +1,171 @@
+package com.perniciouspenguins.ideaz.javadoc.util;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiEllipsisType;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiParameter;
+import com.intellij.psi.PsiSubstitutor;
+import com.intellij.psi.PsiType;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.psi.util.TypeConversionUtil;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class SignatureKeys turns the parameter types of a method into an int key. The key is derived from the
+ * canonical names of the erased parameter types, so two methods have the same key exactly when their
+ * parameter lists have the same erasure, and comparing two signatures is a single int comparison.
+ * <p/>
+ * The canonical signatures are interned per project and released when the project is closed; the
+ * number of distinct parameter lists in a project is small compared to the number of methods. The key of
+ * every method is cached on the method until the Java structure of the project changes.
+ */
+final class SignatureKeys
+{
+    private static final Key<Keys> KEYS_KEY = Key.create( "JavaDocManager.signatureKeys" );
+    private static final Key<CachedValue<Integer>> METHOD_KEY_KEY = Key.create( "JavaDocManager.signatureKey" );
+
+    /**
+     * The canonical signatures interned for one project.
+     */
+    private static final class Keys
+    {
+        private final ConcurrentMap<String, Integer> keys = new ConcurrentHashMap<String, Integer>();
+        private final AtomicInteger nextKey = new AtomicInteger();
+    }
+
+    /**
+     * Method getKey returns the cached key of the erased parameter types of the specified method.
+     *
+     * @param method the method
+     * @return int the signature key of the method.
+     */
+    static int getKey( final PsiMethod method )
+    {
+        return CachedValuesManager.getManager( method.getProject() ).getCachedValue(
+                method, METHOD_KEY_KEY, new CachedValueProvider<Integer>()
+        {
+            /**
+             * Method compute computes the signature key of the method.
+             * @return the key, valid until the Java structure is modified.
+             */
+            public Result<Integer> compute()
+            {
+                return Result.create( getKey( method, PsiSubstitutor.EMPTY ),
+                                      PsiModificationTracker.JAVA_STRUCTURE_MODIFICATION_COUNT );
+            }
+        }, false );
+    }
+
+    /**
+     * Method getKey returns the key of the parameter types of the specified method after applying the
+     * specified substitutor and erasing the result. This is used to match a generic method against the
+     * method of a sub class that binds the type parameters.
+     *
+     * @param method the method
+     * @param substitutor the substitutor to apply to the parameter types
+     * @return int the signature key of the method.
+     */
+    static int getKey( PsiMethod method, PsiSubstitutor substitutor )
+    {
+        PsiParameter[] parameters = method.getParameterList().getParameters();
+        StringBuilder signature = new StringBuilder( parameters.length * 24 );
+        for( PsiParameter parameter : parameters )
+        {
+            PsiType type = parameter.getType();
+            if( type instanceof PsiEllipsisType )
+            {
+                type = ((PsiEllipsisType) type).toArrayType();
+            }
+            PsiType erasure = TypeConversionUtil.erasure( substitutor.substitute( type ) );
+            String typeName = null != erasure ? erasure.getCanonicalText() : type.getCanonicalText();
+            signature.append( typeName ).append( ',' );
+        }
+        return intern( method.getProject(), signature.toString() );
+    }
+
+    /**
+     * Method isGeneric determines whether any parameter type of the specified method differs from its
+     * erasure, in which case a sub class may override the method with different parameter types.
+     *
+     * @param method the method
+     * @return boolean true if a parameter type refers to a type parameter or is parameterized, false otherwise.
+     */
+    static boolean isGeneric( PsiMethod method )
+    {
+        for( PsiParameter parameter : method.getParameterList().getParameters() )
+        {
+            PsiType type = parameter.getType();
+            if( !type.equals( TypeConversionUtil.erasure( type ) ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method release drops the signatures interned for the specified project.
+     *
+     * @param project the project that is closed
+     */
+    static void release( Project project )
+    {
+        project.putUserData( KEYS_KEY, null );
+    }
+
+    /**
+     * Method intern returns the key of the specified canonical signature within the specified project,
+     * assigning a new key to a signature that was not seen before.
+     *
+     * @param project the project of the method the signature belongs to
+     * @param signature the canonical signature
+     * @return int the key of the signature.
+     */
+    private static int intern( Project project, String signature )
+    {
+        Keys keys = getKeys( project );
+        Integer key = keys.keys.get( signature );
+        if( null == key )
+        {
+            Integer newKey = keys.nextKey.getAndIncrement();
+            key = keys.keys.putIfAbsent( signature, newKey );
+            if( null == key )
+            {
+                key = newKey;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Method getKeys returns the signatures interned for the specified project, creating them when the
+     * project has none yet.
+     *
+     * @param project the project
+     * @return Keys the interned signatures of the project.
+     */
+    private static synchronized Keys getKeys( Project project )
+    {
+        Keys keys = project.getUserData( KEYS_KEY );
+        if( null == keys )
+        {
+            keys = new Keys();
+            project.putUserData( KEYS_KEY, keys );
+        }
+        return keys;
+    }
+
+    /**
+     * Constructor SignatureKeys cannot be called.
+     */
+    private SignatureKeys()
+    {
+    }
+}
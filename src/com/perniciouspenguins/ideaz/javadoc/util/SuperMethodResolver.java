@@ -0,0 +1,58 @@
+package com.perniciouspenguins.ideaz.javadoc.util;
+
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiMethod;
+
+/**
+ * Class SuperMethodResolver finds the super method of a method. The {@link OverrideIndex} of the project
+ * is the only cache of the result, so all inspections share a single hierarchy walk per method for as long
+ * as the hierarchy does not change.
+ */
+public final class SuperMethodResolver
+{
+    /**
+     * Method getSuperMethod returns the method that the specified method overrides or implements, as
+     * cached by the {@link OverrideIndex} of the project. The hierarchy is walked on every call when the
+     * index is not available, which is only the case when the plugin components are not loaded.
+     *
+     * @param psiMethod the method of which the super implementation/definition is requested
+     * @return the superMethod or null if the method does not override or implement another method.
+     */
+    public static PsiMethod getSuperMethod( PsiMethod psiMethod )
+    {
+        if( null == psiMethod || !psiMethod.isValid() )
+        {
+            return null;
+        }
+        OverrideIndex overrideIndex = OverrideIndex.getInstance( psiMethod.getProject() );
+        if( null != overrideIndex )
+        {
+            return overrideIndex.getSuperMethod( psiMethod );
+        }
+        return findSuperMethod( psiMethod );
+    }
+
+    /**
+     * Method findSuperMethod walks the hierarchy of the containing class of the specified method without
+     * consulting the override index.
+     *
+     * @param psiMethod the method of which the super implementation/definition is requested
+     * @return the superMethod or null if the method does not override or implement another method.
+     */
+    static PsiMethod findSuperMethod( PsiMethod psiMethod )
+    {
+        PsiClass containingClass = psiMethod.getContainingClass();
+        if( null == containingClass )
+        {
+            return null;
+        }
+        return PsiUtils.checkParents( containingClass.getSuperClass(), psiMethod );
+    }
+
+    /**
+     * Constructor SuperMethodResolver cannot be called.
+     */
+    private SuperMethodResolver()
+    {
+    }
+}
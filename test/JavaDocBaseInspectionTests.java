@@ -1,4 +1,6 @@
 import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.roots.LanguageLevelProjectExtension;
 import com.intellij.pom.java.LanguageLevel;
 import com.intellij.psi.javadoc.PsiDocComment;
@@ -19,10 +21,18 @@ import com.perniciouspenguins.ideaz.javadoc.inspections.JavaDocBaseInspection;
 import com.perniciouspenguins.ideaz.javadoc.inspections.MissingClassJavaDocInspection;
 import com.perniciouspenguins.ideaz.javadoc.inspections.MissingFieldJavaDocInspection;
 import com.perniciouspenguins.ideaz.javadoc.inspections.MissingMethodJavaDocInspection;
+import com.perniciouspenguins.ideaz.javadoc.inspections.ui.JavaDocSyncMethodOptionsPanel;
+import com.perniciouspenguins.ideaz.javadoc.templates.CompiledTemplate;
+import com.perniciouspenguins.ideaz.javadoc.templates.JavaDocCache;
+import com.perniciouspenguins.ideaz.javadoc.templates.JavaDocGenerator;
+import com.perniciouspenguins.ideaz.javadoc.templates.RenderContext;
+import com.perniciouspenguins.ideaz.javadoc.util.DocFingerprint;
+import com.perniciouspenguins.ideaz.javadoc.util.EffectiveDocResolver;
 import com.perniciouspenguins.ideaz.javadoc.util.PsiUtils;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -52,6 +62,10 @@ public class JavaDocBaseInspectionTests extends InspectionTestCase
   private PsiClass classExtendingCustomClassClass;
   /** Field classDefiningEnumClass: **/
   private PsiClass classDefiningEnumClass;
+  /** Field classImplementingGenericInterfaceClass: **/
+  private PsiClass classImplementingGenericInterfaceClass;
+  /** Field classCopyingInheritedDocClass: **/
+  private PsiClass classCopyingInheritedDocClass;
 
   /**
    * Method setupDummyPsiClasses
@@ -304,6 +318,162 @@ public class JavaDocBaseInspectionTests extends InspectionTestCase
         "public enum Test {\n" +
         "}" );
 
+    PsiJavaFile classImplementingGenericInterface =
+        (PsiJavaFile) PsiFileFactory.getInstance( getProject() ).createFileFromText(
+            "ClassImplementingGenericInterface.java",
+            "package p1.p2;\n" +
+            "\n" +
+            "public class ClassImplementingGenericInterface implements GenericInterface<ClassImplementingGenericInterface> {\n" +
+            "    // Should find GenericInterface#compareTo(T) through the bound type argument\n" +
+            "    public int compareTo(ClassImplementingGenericInterface other) {\n" +
+            "        return 0;\n" +
+            "    }\n" +
+            "\n" +
+            "    // Should find GenericInterface#store(Holder<T>) through the erased parameter type\n" +
+            "    public void store(Holder<ClassImplementingGenericInterface> holder) {\n" +
+            "    }\n" +
+            "\n" +
+            "    // Should find GenericInterface#reset(Holder<T>) through the erased parameter type\n" +
+            "    public void reset(Holder holder) {\n" +
+            "    }\n" +
+            "\n" +
+            "    // Should not find anything, the parameter type differs\n" +
+            "    public int compareTo(Holder other) {\n" +
+            "        return 0;\n" +
+            "    }\n" +
+            "}\n" +
+            "\n" +
+            "interface GenericInterface<T> {\n" +
+            "    /**\n" +
+            "     * Method compareTo compares this object to another one.\n" +
+            "     * @param other the other object\n" +
+            "     * @return the comparison result\n" +
+            "     */\n" +
+            "    int compareTo(T other);\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Method store stores this object in the holder.\n" +
+            "     * @param holder the holder\n" +
+            "     */\n" +
+            "    void store(Holder<T> holder);\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Method reset empties the holder.\n" +
+            "     * @param holder the holder\n" +
+            "     */\n" +
+            "    void reset(Holder<T> holder);\n" +
+            "}\n" +
+            "\n" +
+            "class Holder<T> {\n" +
+            "}" );
+
+    PsiJavaFile classCopyingInheritedDoc =
+        (PsiJavaFile) PsiFileFactory.getInstance( getProject() ).createFileFromText(
+            "ClassCopyingInheritedDoc.java",
+            "package p1.p2;\n" +
+            "\n" +
+            "public class ClassCopyingInheritedDoc extends InheritingClass {\n" +
+            "    /**\n" +
+            "     * Method describe describes the value.\n" +
+            "     * @param value the value\n" +
+            "     * @return the description\n" +
+            "     */\n" +
+            "    // Should not say anything, copies the JavaDoc the parent inherits through {@inheritDoc}\n" +
+            "    public String describe(int value) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Method summarize summarizes the value.\n" +
+            "     * @param value the value\n" +
+            "     * @return the summary\n" +
+            "     */\n" +
+            "    // Should not say anything, copies the JavaDoc the parent refers to with a see tag\n" +
+            "    public String summarize(int value) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Method explain explains the value.\n" +
+            "     * @param value the value\n" +
+            "     * @return the explanation\n" +
+            "     */\n" +
+            "    // Should say: JavaDoc differs from JavaDoc in parent method\n" +
+            "    public String explain(int value) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "}\n" +
+            "\n" +
+            "class InheritingClass extends DocumentedClass {\n" +
+            "    /**\n" +
+            "     * {@inheritDoc}\n" +
+            "     */\n" +
+            "    public String describe(int value) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * @see DocumentedClass#summarize(int)\n" +
+            "     */\n" +
+            "    public String summarize(int value) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Method explain explains the value in its own words.\n" +
+            "     * @param value the value\n" +
+            "     * @return the explanation\n" +
+            "     */\n" +
+            "    public String explain(int value) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "}\n" +
+            "\n" +
+            "class DocumentedClass {\n" +
+            "    /**\n" +
+            "     * Method describe describes the value.\n" +
+            "     * @param value the value\n" +
+            "     * @return the description\n" +
+            "     */\n" +
+            "    public String describe(int value) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Method summarize summarizes the value.\n" +
+            "     * @param value the value\n" +
+            "     * @return the summary\n" +
+            "     */\n" +
+            "    public String summarize(int value) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "\n" +
+            "    /**\n" +
+            "     * Method explain explains the value.\n" +
+            "     * @param value the value\n" +
+            "     * @return the explanation\n" +
+            "     */\n" +
+            "    public String explain(int value) {\n" +
+            "        return null;\n" +
+            "    }\n" +
+            "}\n" +
+            "\n" +
+            "// Cyclic on purpose, resolving the effective JavaDoc should not loop\n" +
+            "interface CyclicInterface extends OtherCyclicInterface {\n" +
+            "    /**\n" +
+            "     * {@inheritDoc}\n" +
+            "     */\n" +
+            "    void cycle();\n" +
+            "}\n" +
+            "\n" +
+            "interface OtherCyclicInterface extends CyclicInterface {\n" +
+            "    /**\n" +
+            "     * {@inheritDoc}\n" +
+            "     * @see CyclicInterface#cycle()\n" +
+            "     */\n" +
+            "    void cycle();\n" +
+            "}" );
+
     someInterfaceClass = someInterface.getClasses()[0];
     extendingInterfaceClass = extendingSomeInterface.getClasses()[0];
     classImplementingInterfaceClass = classImplementingInterface.getClasses()[0];
@@ -311,6 +481,8 @@ public class JavaDocBaseInspectionTests extends InspectionTestCase
     classExtendingObjectClass = classExtendingObject.getClasses()[0];
     classExtendingCustomClassClass = classExtendingCustomClass.getClasses()[0];
     classDefiningEnumClass = classDefiningEnum.getClasses()[0];
+    classImplementingGenericInterfaceClass = classImplementingGenericInterface.getClasses()[0];
+    classCopyingInheritedDocClass = classCopyingInheritedDoc.getClasses()[0];
 
     PsiElementFactory psiElementFactory = JavaPsiFacade.getInstance( getProject() ).getElementFactory();
     try
@@ -404,6 +576,40 @@ public class JavaDocBaseInspectionTests extends InspectionTestCase
       fail( e.getMessage() );
     }
     assertTrue( value );
+
+    // Test with references that are not the first tag
+    psiMethod = findPsiMethod( classImplementingInterfaceClass, "anAbstractMethodWithoutJavaDoc" );
+    superMethod = findPsiMethod( someInterfaceClass, "anAbstractMethodWithoutJavaDoc" );
+    PsiElementFactory factory = getJavaFacade().getElementFactory();
+
+    PsiUtils.setPsiDocComment( factory.createDocCommentFromText(
+        "/**\n" +
+        " * Some JavaDoc here\n" +
+        " * @see SomeInterface#overrideMe()\n" +
+        " * @see SomeInterface#anAbstractMethodWithoutJavaDoc()\n" +
+        " */" ), psiMethod );
+    assertTrue( PsiUtils.hasReferenceToParentMethod( psiMethod, superMethod ) );
+
+    PsiUtils.setPsiDocComment( factory.createDocCommentFromText(
+        "/**\n" +
+        " * Does the same as {@link p1.p2.SomeInterface#anAbstractMethodWithoutJavaDoc()}.\n" +
+        " */" ), psiMethod );
+    assertTrue( PsiUtils.hasReferenceToParentMethod( psiMethod, superMethod ) );
+
+    PsiUtils.setPsiDocComment( factory.createDocCommentFromText(
+        "/**\n" +
+        " * Some JavaDoc here\n" +
+        " * @throws RuntimeException never\n" +
+        " * @see p1.p2.SomeInterface#anAbstractMethodWithoutJavaDoc( )\n" +
+        " */" ), psiMethod );
+    assertTrue( PsiUtils.hasReferenceToParentMethod( psiMethod, superMethod ) );
+
+    PsiUtils.setPsiDocComment( factory.createDocCommentFromText(
+        "/**\n" +
+        " * Refers to {@link SomeInterface#overrideMe()} only.\n" +
+        " * @see SomeInterface#anAbstractMethodWithJavaDoc(int, long)\n" +
+        " */" ), psiMethod );
+    assertFalse( PsiUtils.hasReferenceToParentMethod( psiMethod, superMethod ) );
   }
 
   /**
@@ -484,6 +690,103 @@ public class JavaDocBaseInspectionTests extends InspectionTestCase
     }
   }
 
+  /**
+   * Method testFindGenericSuperMethod
+   *
+   */
+  public void testFindGenericSuperMethod()
+  {
+    PsiClass genericInterface = classImplementingGenericInterfaceClass.getInterfaces()[0];
+    assertEquals( "GenericInterface", genericInterface.getName() );
+
+    PsiMethod compareTo = findPsiMethod( classImplementingGenericInterfaceClass, "compareTo",
+                                         "ClassImplementingGenericInterface" );
+    assertEquals( findPsiMethod( genericInterface, "compareTo" ), PsiUtils.getSuperMethod( compareTo ) );
+
+    PsiMethod store = findPsiMethod( classImplementingGenericInterfaceClass, "store" );
+    assertEquals( findPsiMethod( genericInterface, "store" ), PsiUtils.getSuperMethod( store ) );
+
+    PsiMethod reset = findPsiMethod( classImplementingGenericInterfaceClass, "reset" );
+    assertEquals( findPsiMethod( genericInterface, "reset" ), PsiUtils.getSuperMethod( reset ) );
+
+    PsiMethod compareToHolder = findPsiMethod( classImplementingGenericInterfaceClass, "compareTo", "Holder" );
+    assertNull( PsiUtils.getSuperMethod( compareToHolder ) );
+  }
+
+  /**
+   * Method testCopyOfInheritedJavaDocIsConsistent
+   *
+   */
+  public void testCopyOfInheritedJavaDocIsConsistent()
+  {
+    PsiClass inheritingClass = classCopyingInheritedDocClass.getSuperClass();
+    assertNotNull( inheritingClass );
+    assertEquals( "InheritingClass", inheritingClass.getName() );
+
+    PsiMethod describe = findPsiMethod( classCopyingInheritedDocClass, "describe" );
+    PsiMethod superDescribe = findPsiMethod( inheritingClass, "describe" );
+    PsiMethod summarize = findPsiMethod( classCopyingInheritedDocClass, "summarize" );
+    PsiMethod superSummarize = findPsiMethod( inheritingClass, "summarize" );
+    PsiMethod explain = findPsiMethod( classCopyingInheritedDocClass, "explain" );
+    PsiMethod superExplain = findPsiMethod( inheritingClass, "explain" );
+    assertEquals( superDescribe, PsiUtils.getSuperMethod( describe ) );
+    assertEquals( superSummarize, PsiUtils.getSuperMethod( summarize ) );
+    assertEquals( superExplain, PsiUtils.getSuperMethod( explain ) );
+
+    InconsistentJavaDocInspection inconsistentJavaDocInspection = new InconsistentJavaDocInspection();
+    Method findFixesForInconsistency = findMethod( InconsistentJavaDocInspection.class,
+                                                   "findFixesForInconsistency", PsiMethod.class, PsiMethod.class,
+                                                   List.class );
+
+    List<LocalQuickFixBase> fixes = new ArrayList<LocalQuickFixBase>();
+    try
+    {
+      // The parent inherits the JavaDoc it has in effect through {@inheritDoc}
+      String problemDescription = (String) findFixesForInconsistency.invoke( inconsistentJavaDocInspection,
+                                                                             superDescribe, describe, fixes );
+      assertEquals( null, problemDescription );
+      assertEquals( 0, fixes.size() );
+
+      // The parent only refers to the method it inherits the JavaDoc from
+      problemDescription = (String) findFixesForInconsistency.invoke( inconsistentJavaDocInspection,
+                                                                      superSummarize, summarize, fixes );
+      assertEquals( null, problemDescription );
+      assertEquals( 0, fixes.size() );
+
+      // The parent documents the method itself, so the JavaDoc of its own parent does not count
+      problemDescription = (String) findFixesForInconsistency.invoke( inconsistentJavaDocInspection,
+                                                                      superExplain, explain, fixes );
+      assertEquals( LocalQuickFixBase.JAVADOC_DIFFERS_FROM_PARENT, problemDescription );
+      assertEquals( 2, fixes.size() );
+    }
+    catch( Exception e )
+    {
+      fail( e.getMessage() );
+    }
+  }
+
+  /**
+   * Method testEffectiveDocOfCyclicHierarchy
+   *
+   */
+  public void testEffectiveDocOfCyclicHierarchy()
+  {
+    PsiClass[] classes = ((PsiJavaFile) classCopyingInheritedDocClass.getContainingFile()).getClasses();
+    PsiClass cyclicInterface = classes[3];
+    PsiClass otherCyclicInterface = classes[4];
+    assertEquals( "CyclicInterface", cyclicInterface.getName() );
+    assertEquals( "OtherCyclicInterface", otherCyclicInterface.getName() );
+
+    PsiMethod cycle = findPsiMethod( cyclicInterface, "cycle" );
+    PsiMethod otherCycle = findPsiMethod( otherCyclicInterface, "cycle" );
+    assertEquals( otherCycle, PsiUtils.getSuperMethod( cycle ) );
+    assertEquals( cycle, PsiUtils.getSuperMethod( otherCycle ) );
+
+    // Following the inheritDoc tags ends at the method the chain started from
+    assertEquals( cycle.getDocComment(), EffectiveDocResolver.getEffectiveDoc( cycle ) );
+    assertNotNull( EffectiveDocResolver.getEffectiveDoc( otherCycle ) );
+  }
+
   /**
    * Method testImplementingMethodShouldNotSaySayOverride
    *
@@ -1731,6 +2034,182 @@ public class JavaDocBaseInspectionTests extends InspectionTestCase
     javaDocSyncPlugin.disposeComponent();
   }
 
+  /**
+   * Method testCompiledTemplate ...
+   */
+  public void testCompiledTemplate()
+  {
+    CompiledTemplate template = CompiledTemplate.compile( "/**\n\n * Method ${NAME} of ${CLASS} by ${USER}$!{DATE}\n */" );
+    assertFalse( template.requiresVelocity() );
+    assertEquals( 4, template.getSlotCount() );
+    assertEquals( -1, template.getSlot( "PARAM" ) );
+
+    RenderContext context = new RenderContext( template ).set( "NAME", "getValue" ).set( "CLASS", "Foo" ).set( "PARAM", "x" );
+    assertEquals( "/**\n * Method getValue of Foo by ${USER}\n */", template.render( context ) );
+
+    assertTrue( CompiledTemplate.compile( "#if( $NAME )${NAME}#end" ).requiresVelocity() );
+    assertTrue( CompiledTemplate.compile( "${NAME.toUpperCase()}" ).requiresVelocity() );
+    assertFalse( CompiledTemplate.compile( "@see Foo#bar(int)" ).requiresVelocity() );
+  }
+
+  /**
+   * Method testJavaDocCache ...
+   */
+  public void testJavaDocCache()
+  {
+    JavaDocCache cache = new JavaDocCache( 2 );
+    cache.put( "a", "/** a */" );
+    cache.put( "b", "/** b */" );
+    assertEquals( "/** a */", cache.get( "a" ) );
+    cache.put( "c", "/** c */" );
+
+    assertNull( cache.get( "b" ) );
+    assertEquals( "/** a */", cache.get( "a" ) );
+    assertEquals( "/** c */", cache.get( "c" ) );
+    assertEquals( 2, cache.size() );
+    assertEquals( 3, cache.getHitCount() );
+    assertEquals( 1, cache.getMissCount() );
+  }
+
+  /**
+   * Method testJavaDocCacheSharedBetweenClasses ...
+   */
+  public void testJavaDocCacheSharedBetweenClasses()
+  {
+    PsiClass[] classes = new PsiClass[2];
+    for( int i = 0; i < classes.length; i++ )
+    {
+      PsiJavaFile file = (PsiJavaFile) PsiFileFactory.getInstance( getProject() ).createFileFromText(
+          "Dto" + i + ".java",
+          "package p1.p" + i + ";\n" +
+          "\n" +
+          "public class Dto" + i + " {\n" +
+          "    public String convertTemperature(int celsius) {\n" +
+          "        return null;\n" +
+          "    }\n" +
+          "}" );
+      classes[i] = file.getClasses()[0];
+    }
+
+    // The plain method templates do not use CLASS or PACKAGE, so both classes share a single comment
+    JavaDocCache cache = JavaDocGenerator.getCache();
+    long hits = cache.getHitCount();
+    long misses = cache.getMissCount();
+    String first = JavaDocGenerator.generateJavaDoc( findPsiMethod( classes[0], "convertTemperature" ) );
+    assertEquals( hits, cache.getHitCount() );
+    assertEquals( misses + 1, cache.getMissCount() );
+
+    String second = JavaDocGenerator.generateJavaDoc( findPsiMethod( classes[1], "convertTemperature" ) );
+    assertEquals( hits + 1, cache.getHitCount() );
+    assertEquals( misses + 1, cache.getMissCount() );
+    assertNotNull( first );
+    assertEquals( first, second );
+  }
+
+  /**
+   * Method testDocFingerprint ...
+   */
+  public void testDocFingerprint()
+  {
+    String comment = "/**\n     * Method foo does bar.\n     *\n     * @param baz the baz\n     */";
+    String reindented = "  /**\n * Method foo does bar.  \n *\n\n\t * @param baz the baz\n */\n";
+    String different = "/**\n     * Method foo does baz.\n     *\n     * @param baz the baz\n     */";
+
+    assertEquals( DocFingerprint.hash( comment ), DocFingerprint.hash( reindented ) );
+    assertTrue( DocFingerprint.normalizedEquals( comment, reindented ) );
+    assertTrue( new DocFingerprint( comment ).matches( new DocFingerprint( reindented ) ) );
+    assertFalse( new DocFingerprint( comment ).matches( new DocFingerprint( different ) ) );
+    assertFalse( DocFingerprint.normalizedEquals( "a\nb", "ab" ) );
+    assertTrue( DocFingerprint.normalizedEquals( "", " \n\t " ) );
+  }
+
+  /**
+   * Method testGetAccessMask ...
+   */
+  public void testGetAccessMask()
+  {
+    assertEquals( PsiUtils.ACCESS_PUBLIC, PsiUtils.getAccessMask( JavaDocSyncMethodOptionsPanel.METHOD_ACCESS_PUBLIC ) );
+    assertEquals( PsiUtils.ACCESS_PUBLIC | PsiUtils.ACCESS_PROTECTED | PsiUtils.ACCESS_PACKAGE_LOCAL,
+                  PsiUtils.getAccessMask( JavaDocSyncMethodOptionsPanel.METHOD_ACCESS_DEFAULT ) );
+    int all = PsiUtils.ACCESS_PUBLIC | PsiUtils.ACCESS_PROTECTED | PsiUtils.ACCESS_PACKAGE_LOCAL | PsiUtils.ACCESS_PRIVATE;
+    assertEquals( all, PsiUtils.getAccessMask( JavaDocSyncMethodOptionsPanel.METHOD_ACCESS_PRIVATE ) );
+    assertEquals( all, PsiUtils.getAccessMask( "unknown" ) );
+
+    assertTrue( PsiUtils.accessLevelInMask( null, PsiUtils.ACCESS_PACKAGE_LOCAL ) );
+    assertFalse( PsiUtils.accessLevelInMask( null, PsiUtils.ACCESS_PUBLIC ) );
+  }
+
+  /**
+   * Method testMethodDetectionLevel ...
+   */
+  public void testMethodDetectionLevel()
+  {
+    PsiJavaFile classWithModifiers = (PsiJavaFile) PsiFileFactory.getInstance( getProject() ).createFileFromText(
+        "ClassWithModifiers.java",
+        "package p1.p2;\n" +
+        "\n" +
+        "public class ClassWithModifiers {\n" +
+        "    @Deprecated\n" +
+        "    public void annotatedPublicMethod() {\n" +
+        "    }\n" +
+        "\n" +
+        "    @SuppressWarnings(\"unchecked\") protected void annotatedProtectedMethod() {\n" +
+        "    }\n" +
+        "\n" +
+        "    @SuppressWarnings({\"public\", \"private\"})\n" +
+        "    static void staticPackageLocalMethod() {\n" +
+        "    }\n" +
+        "\n" +
+        "    private static void staticPrivateMethod() {\n" +
+        "    }\n" +
+        "}\n" +
+        "\n" +
+        "interface InterfaceWithImplicitModifiers {\n" +
+        "    void implicitlyPublicMethod();\n" +
+        "}" );
+
+    assertEquals( Arrays.asList( "annotatedPublicMethod", "implicitlyPublicMethod" ),
+                  findReportedMethods( classWithModifiers, JavaDocSyncMethodOptionsPanel.METHOD_ACCESS_PUBLIC ) );
+    assertEquals( Arrays.asList( "annotatedPublicMethod", "annotatedProtectedMethod", "implicitlyPublicMethod" ),
+                  findReportedMethods( classWithModifiers, JavaDocSyncMethodOptionsPanel.METHOD_ACCESS_PROTECTED ) );
+    assertEquals( Arrays.asList( "annotatedPublicMethod", "annotatedProtectedMethod", "staticPackageLocalMethod",
+                                 "implicitlyPublicMethod" ),
+                  findReportedMethods( classWithModifiers, JavaDocSyncMethodOptionsPanel.METHOD_ACCESS_DEFAULT ) );
+    assertEquals( Arrays.asList( "annotatedPublicMethod", "annotatedProtectedMethod", "staticPackageLocalMethod",
+                                 "staticPrivateMethod", "implicitlyPublicMethod" ),
+                  findReportedMethods( classWithModifiers, JavaDocSyncMethodOptionsPanel.METHOD_ACCESS_PRIVATE ) );
+  }
+
+  /**
+   * Method findReportedMethods runs the missing method JavaDoc inspection over the methods of the specified
+   * file with the specified detection level.
+   *
+   * @param psiFile the file to inspect
+   * @param methodDetectionLevel the detection level of the inspection
+   * @return List<String> the names of the methods that were reported, in the order of the file
+   */
+  private List<String> findReportedMethods( PsiJavaFile psiFile, String methodDetectionLevel )
+  {
+    MissingMethodJavaDocInspection missingMethodJavaDocInspection = new MissingMethodJavaDocInspection();
+    missingMethodJavaDocInspection.methodDetectionLevel = methodDetectionLevel;
+    ProblemsHolder holder = new ProblemsHolder( InspectionManager.getInstance( getProject() ), psiFile, false );
+    PsiElementVisitor visitor = missingMethodJavaDocInspection.buildVisitor( holder, false );
+    for( PsiClass psiClass : psiFile.getClasses() )
+    {
+      for( PsiMethod psiMethod : psiClass.getMethods() )
+      {
+        psiMethod.accept( visitor );
+      }
+    }
+
+    List<String> reportedMethods = new ArrayList<String>();
+    for( ProblemDescriptor problemDescriptor : holder.getResults() )
+    {
+      reportedMethods.add( problemDescriptor.getPsiElement().getText() );
+    }
+    return reportedMethods;
+  }
+
   /**
    * Method findMethod
    *
@@ -1777,4 +2256,27 @@ public class JavaDocBaseInspectionTests extends InspectionTestCase
     }
     return psiMethod;
   }
+
+  /**
+   * Method findPsiMethod
+   *
+   * @param psiClass class to look in
+   * @param methodName method name to look for
+   * @param parameterType the text of the type of the first parameter
+   * @return PsiMethod the method or null
+   */
+  private PsiMethod findPsiMethod( PsiClass psiClass, String methodName, String parameterType )
+  {
+    PsiMethod psiMethod = null;
+    for( PsiMethod methodDefinition : psiClass.findMethodsByName( methodName, false ) )
+    {
+      PsiParameter[] parameters = methodDefinition.getParameterList().getParameters();
+      if( parameters.length > 0 && parameterType.equals( parameters[0].getTypeElement().getText() ) )
+      {
+        psiMethod = methodDefinition;
+      }
+    }
+    assertNotNull( psiMethod );
+    return psiMethod;
+  }
 }
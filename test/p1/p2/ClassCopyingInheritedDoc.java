@@ -0,0 +1,103 @@
+package p1.p2;
+
+public class ClassCopyingInheritedDoc extends InheritingClass {
+    /**
+     * Method describe describes the value.
+     * @param value the value
+     * @return the description
+     */
+    // Should not say anything, copies the JavaDoc the parent inherits through {@inheritDoc}
+    public String describe(int value) {
+        return null;
+    }
+
+    /**
+     * Method summarize summarizes the value.
+     * @param value the value
+     * @return the summary
+     */
+    // Should not say anything, copies the JavaDoc the parent refers to with a see tag
+    public String summarize(int value) {
+        return null;
+    }
+
+    /**
+     * Method explain explains the value.
+     * @param value the value
+     * @return the explanation
+     */
+    // Should say: JavaDoc differs from JavaDoc in parent method
+    public String explain(int value) {
+        return null;
+    }
+}
+
+class InheritingClass extends DocumentedClass {
+    /**
+     * {@inheritDoc}
+     */
+    public String describe(int value) {
+        return null;
+    }
+
+    /**
+     * @see DocumentedClass#summarize(int)
+     */
+    public String summarize(int value) {
+        return null;
+    }
+
+    /**
+     * Method explain explains the value in its own words.
+     * @param value the value
+     * @return the explanation
+     */
+    public String explain(int value) {
+        return null;
+    }
+}
+
+class DocumentedClass {
+    /**
+     * Method describe describes the value.
+     * @param value the value
+     * @return the description
+     */
+    public String describe(int value) {
+        return null;
+    }
+
+    /**
+     * Method summarize summarizes the value.
+     * @param value the value
+     * @return the summary
+     */
+    public String summarize(int value) {
+        return null;
+    }
+
+    /**
+     * Method explain explains the value.
+     * @param value the value
+     * @return the explanation
+     */
+    public String explain(int value) {
+        return null;
+    }
+}
+
+// Cyclic on purpose, resolving the effective JavaDoc should not loop
+interface CyclicInterface extends OtherCyclicInterface {
+    /**
+     * {@inheritDoc}
+     */
+    void cycle();
+}
+
+interface OtherCyclicInterface extends CyclicInterface {
+    /**
+     * {@inheritDoc}
+     * @see CyclicInterface#cycle()
+     */
+    void cycle();
+}
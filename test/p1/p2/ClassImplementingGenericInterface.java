@@ -0,0 +1,45 @@
+package p1.p2;
+
+public class ClassImplementingGenericInterface implements GenericInterface<ClassImplementingGenericInterface> {
+    // Should find GenericInterface#compareTo(T) through the bound type argument
+    public int compareTo(ClassImplementingGenericInterface other) {
+        return 0;
+    }
+
+    // Should find GenericInterface#store(Holder<T>) through the erased parameter type
+    public void store(Holder<ClassImplementingGenericInterface> holder) {
+    }
+
+    // Should find GenericInterface#reset(Holder<T>) through the erased parameter type
+    public void reset(Holder holder) {
+    }
+
+    // Should not find anything, the parameter type differs
+    public int compareTo(Holder other) {
+        return 0;
+    }
+}
+
+interface GenericInterface<T> {
+    /**
+     * Method compareTo compares this object to another one.
+     * @param other the other object
+     * @return the comparison result
+     */
+    int compareTo(T other);
+
+    /**
+     * Method store stores this object in the holder.
+     * @param holder the holder
+     */
+    void store(Holder<T> holder);
+
+    /**
+     * Method reset empties the holder.
+     * @param holder the holder
+     */
+    void reset(Holder<T> holder);
+}
+
+class Holder<T> {
+}